@@ -18,6 +18,14 @@ import org.slf4j.LoggerFactory;
 
 public class AemManagementClient extends RestClient {
   public static final String ATTR_DEAD_MSG_QUEUE = "deadMsgQueue";
+  public static final String ATTR_MAX_REDELIVERY_COUNT = "maxRedeliveryCount";
+  public static final String ATTR_REDELIVERY_ENABLED = "redeliveryEnabled";
+  public static final String ATTR_REDELIVERY_DELAY_ENABLED = "redeliveryDelayEnabled";
+  public static final String ATTR_REDELIVERY_DELAY_INITIAL_INTERVAL =
+      "redeliveryDelayInitialInterval";
+  public static final String ATTR_REDELIVERY_DELAY_MAX_INTERVAL = "redeliveryDelayMaxInterval";
+  // fixed-point number with a scale of 100, e.g. 200 for a factor of 2
+  public static final String ATTR_REDELIVERY_DELAY_MULTIPLIER = "redeliveryDelayMultiplier";
   private static final Logger logger = LoggerFactory.getLogger(AemManagementClient.class);
   private static final String API_BASE = "/SEMP/v2/config/msgVpns/%s";
   private static final String API_QUEUE = API_BASE + "/queues";
@@ -0,0 +1,94 @@
+package com.sap.cds.feature.messaging.aem.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.cds.feature.messaging.aem.client.binding.AemEndpointView;
+import com.sap.cds.services.ServiceException;
+import com.sap.cloud.environment.servicebinding.api.ServiceBinding;
+import com.sap.cloud.sdk.cloudplatform.connectivity.HttpDestination;
+import com.sap.cloud.sdk.cloudplatform.connectivity.ServiceBindingDestinationOptions;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemMonitorClient reads the monitoring data of queues from the SEMP monitor API of the broker.
+ * Each queue is requested by its name with only the fields of {@link AemQueueMetrics}, so that the
+ * other queues of the message VPN are not read.
+ */
+public class AemMonitorClient extends RestClient {
+  private static final Logger logger = LoggerFactory.getLogger(AemMonitorClient.class);
+  private static final String API_QUEUE_NAME = "/SEMP/v2/monitor/msgVpns/%s/queues/%s?select=%s";
+  private static final String ATTR_QUEUE_NAME = "queueName";
+  private static final String ATTR_SPOOLED_MSG_COUNT = "spooledMsgCount";
+  private static final String ATTR_MSG_SPOOL_USAGE = "msgSpoolUsage";
+  private static final String ATTR_BIND_COUNT = "bindCount";
+  private static final String ATTR_REDELIVERED_MSG_COUNT = "redeliveredMsgCount";
+  private static final String SELECT =
+      String.join(
+          ",",
+          ATTR_QUEUE_NAME,
+          ATTR_SPOOLED_MSG_COUNT,
+          ATTR_MSG_SPOOL_USAGE,
+          ATTR_BIND_COUNT,
+          ATTR_REDELIVERED_MSG_COUNT);
+
+  private final String vpn;
+
+  public AemMonitorClient(ServiceBinding binding) {
+    super(ServiceBindingDestinationOptions.forService(binding).build());
+    this.vpn = new AemEndpointView(binding).getVpn().get();
+  }
+
+  @VisibleForTesting
+  AemMonitorClient(HttpDestination destination, String vpn) {
+    super(destination);
+    this.vpn = vpn;
+  }
+
+  /**
+   * Reads the monitoring data of the given queues. The redelivery rate of the returned metrics is
+   * {@code 0}, it is derived from consecutive polls by the caller.
+   *
+   * @param queues the names of the queues
+   * @return the metrics of the queues found, by queue name
+   * @throws IOException if the monitoring data could not be read
+   */
+  public Map<String, AemQueueMetrics> getQueueMetrics(Collection<String> queues)
+      throws IOException {
+    Map<String, AemQueueMetrics> metrics = new HashMap<>();
+    for (String name : queues) {
+      JsonNode queue;
+      try {
+        queue = getRequest(uri(name)).path("data");
+      } catch (ServiceException e) {
+        logger.debug("Failed to retrieve monitoring data of queue {}", name, e);
+        continue;
+      }
+      metrics.put(
+          name,
+          new AemQueueMetrics(
+              name,
+              queue.path(ATTR_SPOOLED_MSG_COUNT).asLong(),
+              queue.path(ATTR_MSG_SPOOL_USAGE).asLong(),
+              queue.path(ATTR_BIND_COUNT).asLong(),
+              queue.path(ATTR_REDELIVERED_MSG_COUNT).asLong(),
+              0));
+    }
+    logger.debug("Retrieved monitoring data of {} of {} queues", metrics.size(), queues.size());
+    return metrics;
+  }
+
+  private String uri(String queue) {
+    return String.format(
+        API_QUEUE_NAME,
+        URLEncoder.encode(this.vpn, StandardCharsets.UTF_8),
+        URLEncoder.encode(queue, StandardCharsets.UTF_8),
+        URLEncoder.encode(SELECT, StandardCharsets.UTF_8));
+  }
+}
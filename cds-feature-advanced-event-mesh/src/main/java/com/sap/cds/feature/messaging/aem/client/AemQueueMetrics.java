@@ -0,0 +1,19 @@
+package com.sap.cds.feature.messaging.aem.client;
+
+/**
+ * The monitoring data of a queue, as reported by the SEMP monitor API of the broker.
+ *
+ * @param queueName the name of the queue
+ * @param spooledMsgCount the number of messages spooled on the queue, i.e. the consumer lag
+ * @param msgSpoolUsage the bytes of the messages spooled on the queue
+ * @param bindCount the number of consumers bound to the queue
+ * @param redeliveredMsgCount the number of messages redelivered from the queue
+ * @param redeliveryRate the redelivered messages per second since the previous poll
+ */
+public record AemQueueMetrics(
+    String queueName,
+    long spooledMsgCount,
+    long msgSpoolUsage,
+    long bindCount,
+    long redeliveredMsgCount,
+    double redeliveryRate) {}
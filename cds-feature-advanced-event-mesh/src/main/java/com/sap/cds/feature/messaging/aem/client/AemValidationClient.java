@@ -30,7 +30,7 @@ public class AemValidationClient extends RestClient {
       payloadMap.put("subaccountId", subaccountId);
     }
 
-    String payload = this.mapper.writeValueAsString(payloadMap);
+    String payload = JSON_WRITER.writeValueAsString(payloadMap);
 
     // The response is not used, only the status code is relevant. If there is a status code not
     // equal to 200,
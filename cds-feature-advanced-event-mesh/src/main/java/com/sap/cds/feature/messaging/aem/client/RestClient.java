@@ -4,6 +4,8 @@ import static org.apache.http.entity.ContentType.APPLICATION_JSON;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.sap.cds.services.ServiceException;
 import com.sap.cloud.sdk.cloudplatform.connectivity.HttpClientAccessor;
 import com.sap.cloud.sdk.cloudplatform.connectivity.HttpDestination;
@@ -26,7 +28,10 @@ import org.slf4j.LoggerFactory;
 class RestClient {
 
   private static final Logger logger = LoggerFactory.getLogger(RestClient.class);
-  protected final ObjectMapper mapper = new ObjectMapper();
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  // shared by all clients, the reader and the writer are immutable and thread-safe
+  private static final ObjectReader JSON_READER = MAPPER.readerFor(JsonNode.class);
+  static final ObjectWriter JSON_WRITER = MAPPER.writer();
   private final HttpDestination destination;
 
   RestClient(ServiceBindingDestinationOptions bindingDestinationOptions) {
@@ -49,7 +54,7 @@ class RestClient {
   }
 
   public JsonNode postRequest(String path, Map<String, Object> data) throws IOException {
-    String strData = mapper.writer().writeValueAsString(data);
+    String strData = JSON_WRITER.writeValueAsString(data);
     return postRequest(path, strData, null);
   }
 
@@ -102,17 +107,18 @@ class RestClient {
             contentType = resp.getEntity().getContentType().getValue();
           }
           if (APPLICATION_JSON.toString().startsWith(contentType)) {
-            String jsonData = EntityUtils.toString(resp.getEntity());
-            if (jsonData == null || jsonData.isBlank()) {
-              return mapper.readValue("{}", JsonNode.class);
+            // parses the bytes of the response without decoding them to a string first
+            byte[] jsonData = EntityUtils.toByteArray(resp.getEntity());
+            if (jsonData == null || isBlank(jsonData)) {
+              return MAPPER.createObjectNode();
             }
-            return mapper.readValue(jsonData, JsonNode.class);
+            return JSON_READER.readValue(jsonData);
           } else {
             throw new IOException(
                 "Unexpected response format: Expected JSON but found '" + contentType + "'");
           }
         } else {
-          return mapper.readValue("{}", JsonNode.class);
+          return MAPPER.createObjectNode();
         }
       } else {
         String reason = resp.getStatusLine().getReasonPhrase();
@@ -120,4 +126,13 @@ class RestClient {
       }
     }
   }
+
+  private static boolean isBlank(byte[] data) {
+    for (byte b : data) {
+      if (!Character.isWhitespace(b)) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
@@ -2,7 +2,10 @@ package com.sap.cds.feature.messaging.aem.client.binding;
 
 import com.sap.cds.feature.messaging.aem.service.AemMessagingServiceConfiguration;
 import com.sap.cloud.environment.servicebinding.api.ServiceBinding;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -41,7 +44,26 @@ public class AemEndpointView {
 	 *         empty {@link Optional}.
 	 */
 	public Optional<String> getAmqpUri() {
-		return Optional.ofNullable((String) getAemEndpoint().get(AMQP_URI_KEY));
+		List<String> amqpUris = getAmqpUris();
+		return amqpUris.isEmpty() ? Optional.empty() : Optional.of(amqpUris.get(0));
+	}
+
+	/**
+	 * Retrieves all AMQP URIs from the AEM endpoint, e.g. of the primary and the
+	 * disaster recovery broker. The AMQP URI may be given as a list or as a
+	 * comma-separated string.
+	 *
+	 * @return the AMQP URIs, the primary one first
+	 */
+	public List<String> getAmqpUris() {
+		Object amqpUri = getAemEndpoint().get(AMQP_URI_KEY);
+		if (amqpUri instanceof String uris) {
+			return Arrays.stream(uris.split(",")).map(String::trim).filter(uri -> !uri.isEmpty())
+					.toList();
+		} else if (amqpUri instanceof Collection<?> uris) {
+			return uris.stream().map(String::valueOf).map(String::trim).toList();
+		}
+		return List.of();
 	}
 
 	/**
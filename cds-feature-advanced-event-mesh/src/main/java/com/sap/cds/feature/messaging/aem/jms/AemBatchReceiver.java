@@ -0,0 +1,155 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemBatchReceiver receives the messages of a consumer in batches of up to a maximum number of
+ * messages or until a timeout has elapsed, and hands them to the message listener one after the
+ * other. The messages are received on a session with individual acknowledgement: each message the
+ * listener has acknowledged is acknowledged on its own, each message it failed on or did not
+ * acknowledge is settled as failed, so that the broker delivers only this message again. A batch
+ * ends early, once the payload of its messages reaches the given maximum. Redelivered messages
+ * are taken out of their batch and processed on their own after their redelivery delay.
+ */
+class AemBatchReceiver implements Runnable, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemBatchReceiver.class);
+  private static final long POLL_TIMEOUT_MILLIS = 1000;
+  private static final long RETRY_DELAY_MILLIS = 1000;
+
+  private final MessageConsumer consumer;
+  private final MessageListener listener;
+  private final int batchSize;
+  private final Duration batchTimeout;
+  private final long maxBatchBytes;
+  private final AemRedeliveryDelay redeliveryDelay;
+  private final Thread thread;
+
+  private volatile boolean running = true;
+
+  AemBatchReceiver(
+      MessageConsumer consumer, MessageListener listener, int batchSize, Duration batchTimeout) {
+    this(consumer, listener, batchSize, batchTimeout, -1, null);
+  }
+
+  AemBatchReceiver(
+      MessageConsumer consumer,
+      MessageListener listener,
+      int batchSize,
+      Duration batchTimeout,
+      long maxBatchBytes,
+      AemRedeliveryDelay redeliveryDelay) {
+    this.consumer = consumer;
+    this.listener = listener;
+    this.batchSize = batchSize;
+    this.batchTimeout = batchTimeout;
+    this.maxBatchBytes = maxBatchBytes;
+    this.redeliveryDelay = redeliveryDelay;
+    this.thread = new Thread(this, "aem-batch-receiver");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        List<Message> batch = receiveBatch();
+        if (!batch.isEmpty()) {
+          process(batch);
+        }
+      } catch (JMSException e) {
+        if (running) {
+          logger.warn("Failed to receive a batch of messages, retrying.", e);
+          sleep(RETRY_DELAY_MILLIS);
+        }
+      }
+    }
+  }
+
+  List<Message> receiveBatch() throws JMSException {
+    List<Message> batch = new ArrayList<>(batchSize);
+    Message message = consumer.receive(POLL_TIMEOUT_MILLIS);
+    if (message == null) {
+      return batch;
+    }
+    batch.add(message);
+    long batchBytes = AemPayloadBudget.getPayloadSize(message);
+
+    long deadline = System.nanoTime() + batchTimeout.toNanos();
+    while (batch.size() < batchSize && (maxBatchBytes <= 0 || batchBytes < maxBatchBytes)) {
+      long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      message = remaining > 0 ? consumer.receive(remaining) : consumer.receiveNoWait();
+      if (message == null) {
+        break;
+      }
+      batch.add(message);
+      batchBytes += AemPayloadBudget.getPayloadSize(message);
+    }
+    return batch;
+  }
+
+  void process(List<Message> batch) throws JMSException {
+    int failed = 0;
+    for (Message message : batch) {
+      if (redeliveryDelay != null && redeliveryDelay.defer(message, this::processDelayed)) {
+        continue;
+      }
+      // only a failed message is delivered again, not the processed messages of the batch
+      if (!AemMessages.process(listener, message)) {
+        failed++;
+      }
+    }
+    if (failed > 0) {
+      logger.debug("{} of {} messages of the batch are delivered again.", failed, batch.size());
+    }
+  }
+
+  private void processDelayed(Message message) {
+    try {
+      AemMessages.process(listener, message);
+    } catch (JMSException e) {
+      logger.warn("Failed to settle the delayed message.", e);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for the batch in progress to be processed, after the receiver has been closed.
+   *
+   * @param timeoutMillis the maximum time to wait
+   * @return {@code true} if the receiver has stopped
+   */
+  boolean await(long timeoutMillis) {
+    try {
+      thread.join(Math.max(timeoutMillis, 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return !thread.isAlive();
+  }
+
+  @Override
+  public void close() {
+    running = false;
+  }
+}
@@ -0,0 +1,115 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.jms.BrokerConnection;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AemBrokerConnection is the {@link BrokerConnection} created for an advanced-event-mesh binding.
+ * In addition to the listener and emit handling of the base class it gives access to the
+ * underlying JMS connections, which are used for the plugin's own publishing.
+ */
+public class AemBrokerConnection extends BrokerConnection {
+
+  private final AemConnectionFactory connectionFactory;
+  private final Runnable onClose;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  AemBrokerConnection(String name, AemConnectionFactory connectionFactory) {
+    this(name, connectionFactory, null);
+  }
+
+  AemBrokerConnection(String name, AemConnectionFactory connectionFactory, Runnable onClose) {
+    super(name, connectionFactory);
+    this.connectionFactory = connectionFactory;
+    this.onClose = onClose;
+  }
+
+  @Override
+  public void close() throws JMSException {
+    try {
+      super.close();
+    } finally {
+      // releases the resources of the provider shared with other broker connections once
+      if (onClose != null && closed.compareAndSet(false, true)) {
+        onClose.run();
+      }
+    }
+  }
+
+  /**
+   * Returns the JMS connection opened by this broker connection.
+   *
+   * @return the JMS connection
+   * @throws ServiceException if the broker connection has not been connected yet
+   */
+  public Connection getJmsConnection() {
+    return getAemConnection();
+  }
+
+  /**
+   * Returns the physical JMS connections of this broker connection, opening further connections
+   * until there are at least the given number. Sessions created by the broker connection, e.g. for
+   * queue listeners registered afterwards, are distributed over all of them.
+   *
+   * @param count the minimum number of physical connections
+   * @return the physical JMS connections
+   * @throws ServiceException if the broker connection has not been connected yet or a connection
+   *     could not be opened
+   */
+  public List<Connection> getJmsConnections(int count) {
+    AemConnection connection = getAemConnection();
+    try {
+      connection.open(count);
+    } catch (JMSException e) {
+      throw new ServiceException("Failed to open additional connections to the broker.", e);
+    }
+    return connection.getConnections();
+  }
+
+  /**
+   * Returns the monitor of the failover of the physical connections of this broker connection.
+   *
+   * @return the connection monitor
+   */
+  public AemConnectionMonitor getConnectionMonitor() {
+    return connectionFactory.getMonitor();
+  }
+
+  /**
+   * Drains the consumers of this broker connection before it is closed: the delivery of messages
+   * is stopped and the messages already taken by the consumers are processed and acknowledged
+   * within the given timeout.
+   *
+   * @param timeout the maximum time to wait for the handlers
+   * @return {@code true} if all handlers have finished within the timeout
+   */
+  public boolean drain(Duration timeout) {
+    AemConnection connection = connectionFactory.getConnection();
+    return connection == null || connection.drain(timeout);
+  }
+
+  /**
+   * Registers the options for the consumers of the given queue. The options apply to the queue
+   * listeners registered afterwards. The options are copied, so that the consumers of each queue
+   * share a payload budget and a deduplication cache of their own.
+   *
+   * @param queue the name of the queue
+   * @param options the consumer options
+   */
+  public void setConsumerOptions(String queue, AemConsumerOptions options) {
+    connectionFactory.getConsumerOptions().put(queue, options.copy());
+  }
+
+  private AemConnection getAemConnection() {
+    AemConnection connection = connectionFactory.getConnection();
+    if (connection == null) {
+      throw new ServiceException("The broker connection has not been established yet.");
+    }
+    return connection;
+  }
+}
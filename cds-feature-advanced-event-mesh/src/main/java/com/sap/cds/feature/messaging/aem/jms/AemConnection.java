@@ -0,0 +1,296 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionConsumer;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.ConnectionMetaData;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.JMSException;
+import jakarta.jms.ServerSessionPool;
+import jakarta.jms.Session;
+import jakarta.jms.Topic;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemConnection is the JMS connection handed to the {@link
+ * com.sap.cds.services.messaging.jms.BrokerConnection}. It is backed by a pool of physical
+ * connections to the broker: the first one is opened by the broker connection, further ones are
+ * opened on demand with {@link #open(int)}. Sessions, and with them the consumers of the queue
+ * listeners, are distributed round-robin over the pool. Once {@link AemConsumerOptions} have been
+ * registered, sessions are returned as {@link AemSession} to apply them to the consumers.
+ */
+class AemConnection implements Connection {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemConnection.class);
+
+  private final ConnectionFactory connectionFactory;
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+  private final AtomicInteger nextSession = new AtomicInteger();
+  private final Map<String, AemConsumerOptions> consumerOptions;
+  private final Set<AemSession> sessions = ConcurrentHashMap.newKeySet();
+  private final AemConnectionMonitor monitor;
+
+  private volatile boolean started;
+  private volatile ExceptionListener exceptionListener;
+
+  AemConnection(Connection connection, ConnectionFactory connectionFactory) {
+    this(connection, connectionFactory, Map.of(), null);
+  }
+
+  AemConnection(
+      Connection connection,
+      ConnectionFactory connectionFactory,
+      Map<String, AemConsumerOptions> consumerOptions,
+      AemConnectionMonitor monitor) {
+    this.connections.add(connection);
+    this.connectionFactory = connectionFactory;
+    this.consumerOptions = consumerOptions;
+    this.monitor = monitor;
+    if (monitor != null) {
+      monitor.register(connection);
+    }
+  }
+
+  /**
+   * Opens further physical connections until the pool has the given size.
+   *
+   * @param count the number of physical connections
+   * @throws JMSException if a connection could not be opened
+   */
+  synchronized void open(int count) throws JMSException {
+    while (connections.size() < count) {
+      logger.debug("Opening connection {} of {} to the broker.", connections.size() + 1, count);
+      Connection connection = connectionFactory.createConnection();
+      if (monitor != null) {
+        monitor.register(connection);
+      }
+      if (exceptionListener != null) {
+        connection.setExceptionListener(exceptionListener);
+      }
+      if (started) {
+        connection.start();
+      }
+      connections.add(connection);
+    }
+  }
+
+  /**
+   * Returns the physical connections of the pool.
+   *
+   * @return the physical connections
+   */
+  List<Connection> getConnections() {
+    return connections;
+  }
+
+  private Connection nextConnection() {
+    return connections.get(Math.floorMod(nextSession.getAndIncrement(), connections.size()));
+  }
+
+  private Session wrap(Session session, Connection connection) {
+    if (consumerOptions.isEmpty()) {
+      return session;
+    }
+    sessions.removeIf(AemSession::isClosed);
+    AemSession aemSession = new AemSession(session, connection, consumerOptions);
+    sessions.add(aemSession);
+    return aemSession;
+  }
+
+  /**
+   * Drains the consumers of the connection before it is closed. The delivery of messages is
+   * stopped, which waits for the listeners in progress, and the handlers processing messages in
+   * parallel or in batches finish the messages they have already taken, so that their messages are
+   * acknowledged. Messages still in the prefetch buffers are released when the connection is
+   * closed.
+   *
+   * @param timeout the maximum time to wait for the handlers
+   * @return {@code true} if all handlers have finished within the timeout
+   */
+  boolean drain(Duration timeout) {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    CompletableFuture<Void> stopped =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                stop();
+              } catch (JMSException e) {
+                throw new CompletionException(e);
+              }
+            });
+    boolean drained = true;
+    try {
+      stopped.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      logger.warn("Timed out waiting for the message listeners to return.");
+      drained = false;
+    } catch (ExecutionException e) {
+      logger.warn("Failed to stop the delivery of messages.", e.getCause());
+      drained = false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    for (AemSession session : sessions) {
+      drained &= session.drain(deadline);
+    }
+    return drained;
+  }
+
+  @Override
+  public Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
+    Connection connection = nextConnection();
+    return wrap(connection.createSession(transacted, acknowledgeMode), connection);
+  }
+
+  @Override
+  public Session createSession(int sessionMode) throws JMSException {
+    Connection connection = nextConnection();
+    return wrap(connection.createSession(sessionMode), connection);
+  }
+
+  @Override
+  public Session createSession() throws JMSException {
+    Connection connection = nextConnection();
+    return wrap(connection.createSession(), connection);
+  }
+
+  @Override
+  public String getClientID() throws JMSException {
+    return connections.get(0).getClientID();
+  }
+
+  @Override
+  public void setClientID(String clientID) throws JMSException {
+    connections.get(0).setClientID(clientID);
+  }
+
+  @Override
+  public ConnectionMetaData getMetaData() throws JMSException {
+    return connections.get(0).getMetaData();
+  }
+
+  @Override
+  public ExceptionListener getExceptionListener() throws JMSException {
+    return exceptionListener;
+  }
+
+  @Override
+  public synchronized void setExceptionListener(ExceptionListener listener) throws JMSException {
+    this.exceptionListener = listener;
+    for (Connection connection : connections) {
+      connection.setExceptionListener(listener);
+    }
+  }
+
+  @Override
+  public synchronized void start() throws JMSException {
+    for (Connection connection : connections) {
+      connection.start();
+    }
+    started = true;
+  }
+
+  @Override
+  public synchronized void stop() throws JMSException {
+    started = false;
+    for (Connection connection : connections) {
+      connection.stop();
+    }
+  }
+
+  /**
+   * Reports a physical connection that stalled to the exception listener, so that the broker
+   * connection replaces this connection.
+   *
+   * @param physical the physical connection that stalled
+   */
+  void onStalled(Connection physical) {
+    ExceptionListener listener = exceptionListener;
+    if (listener != null && connections.contains(physical)) {
+      listener.onException(new JMSException("The connection to the broker stalled."));
+    }
+  }
+
+  @Override
+  public synchronized void close() throws JMSException {
+    if (monitor != null) {
+      monitor.close();
+    }
+    JMSException failure = null;
+    for (Connection connection : connections) {
+      if (monitor != null) {
+        monitor.unregister(connection);
+      }
+      try {
+        connection.close();
+      } catch (JMSException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public ConnectionConsumer createConnectionConsumer(
+      Destination destination, String messageSelector, ServerSessionPool sessionPool, int maxMessages)
+      throws JMSException {
+    return connections.get(0)
+        .createConnectionConsumer(destination, messageSelector, sessionPool, maxMessages);
+  }
+
+  @Override
+  public ConnectionConsumer createSharedConnectionConsumer(
+      Topic topic,
+      String subscriptionName,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connections.get(0)
+        .createSharedConnectionConsumer(
+            topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+  }
+
+  @Override
+  public ConnectionConsumer createDurableConnectionConsumer(
+      Topic topic,
+      String subscriptionName,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connections.get(0)
+        .createDurableConnectionConsumer(
+            topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+  }
+
+  @Override
+  public ConnectionConsumer createSharedDurableConnectionConsumer(
+      Topic topic,
+      String subscriptionName,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connections.get(0)
+        .createSharedDurableConnectionConsumer(
+            topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+  }
+}
@@ -0,0 +1,120 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AemConnectionFactory wraps the Qpid connection factory and keeps track of the connection opened
+ * by the {@link com.sap.cds.services.messaging.jms.BrokerConnection}, so that the plugin can open
+ * its own sessions on the same physical AMQP connections. The connection is returned as {@link
+ * AemConnection}, which can be extended to a pool of physical connections. If it is created for an
+ * {@link AemConnectionPool}, the physical connections are shared with the broker connections of
+ * other services.
+ */
+class AemConnectionFactory implements ConnectionFactory {
+
+  private final ConnectionFactory delegate;
+  private final Map<String, AemConsumerOptions> consumerOptions;
+  private final AemConnectionMonitor monitor;
+  private final boolean pooled;
+  private volatile AemConnection connection;
+  private volatile Duration healthCheckInterval = Duration.ZERO;
+
+  AemConnectionFactory(ConnectionFactory delegate) {
+    this.delegate = delegate;
+    this.consumerOptions = new ConcurrentHashMap<>();
+    this.monitor = new AemConnectionMonitor();
+    this.pooled = false;
+  }
+
+  AemConnectionFactory(AemConnectionPool pool) {
+    this.delegate = pool.newConnectionFactory();
+    // the prefetch policy of the shared connections finds the options of all services
+    this.consumerOptions = pool.getConsumerOptions();
+    // the pool registers the monitor with the physical connections
+    this.monitor = pool.getMonitor();
+    this.pooled = true;
+  }
+
+  AemConnection getConnection() {
+    return this.connection;
+  }
+
+  Map<String, AemConsumerOptions> getConsumerOptions() {
+    return this.consumerOptions;
+  }
+
+  AemConnectionMonitor getMonitor() {
+    return this.monitor;
+  }
+
+  void setHealthCheckInterval(Duration healthCheckInterval) {
+    this.healthCheckInterval = healthCheckInterval;
+  }
+
+  @Override
+  public Connection createConnection() throws JMSException {
+    this.connection =
+        new AemConnection(
+            delegate.createConnection(), delegate, consumerOptions, pooled ? null : monitor);
+    watch(this.connection);
+    return this.connection;
+  }
+
+  @Override
+  public Connection createConnection(String userName, String password) throws JMSException {
+    this.connection =
+        new AemConnection(
+            delegate.createConnection(userName, password),
+            delegate,
+            consumerOptions,
+            pooled ? null : monitor);
+    watch(this.connection);
+    return this.connection;
+  }
+
+  private void watch(AemConnection connection) {
+    if (!healthCheckInterval.isZero()) {
+      // the watchdog follows the broker connection to the connection opened on reconnect
+      monitor.watch(this::getPhysicalConnections, healthCheckInterval, this::onStalled);
+    }
+  }
+
+  private List<Connection> getPhysicalConnections() {
+    AemConnection current = this.connection;
+    return current != null ? current.getConnections() : List.of();
+  }
+
+  private void onStalled(Connection physical) {
+    AemConnection current = this.connection;
+    if (current != null) {
+      current.onStalled(physical);
+    }
+  }
+
+  @Override
+  public JMSContext createContext() {
+    return delegate.createContext();
+  }
+
+  @Override
+  public JMSContext createContext(String userName, String password) {
+    return delegate.createContext(userName, password);
+  }
+
+  @Override
+  public JMSContext createContext(String userName, String password, int sessionMode) {
+    return delegate.createContext(userName, password, sessionMode);
+  }
+
+  @Override
+  public JMSContext createContext(int sessionMode) {
+    return delegate.createContext(sessionMode);
+  }
+}
@@ -0,0 +1,353 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsDefaultConnectionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemConnectionMonitor observes the failover of the physical connections to the broker. It counts
+ * the interruptions and measures the time until a connection has been restored, as well as the
+ * messages published while a connection was interrupted.
+ *
+ * <p>If a health check interval is configured, a watchdog probes each connection that is not
+ * reconnecting by opening and closing a session. A probe is abandoned after the health check
+ * interval, independent of the request timeout of the connection. Connections that do not answer
+ * are reported as stalled and handed once to the stall handler, which replaces them.
+ */
+public class AemConnectionMonitor {
+
+  /** The health of the connections to the broker. */
+  public enum Health {
+    /** All connections are established and answer. */
+    HEALTHY,
+    /** A connection was interrupted and is reconnecting. */
+    RECONNECTING,
+    /** A connection did not answer the last probe of the watchdog. */
+    STALLED,
+    /** A connection failed after all reconnect attempts. */
+    FAILED
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(AemConnectionMonitor.class);
+
+  private final AtomicInteger interrupted = new AtomicInteger();
+  private final AtomicLong interruptions = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong outagePublishes = new AtomicLong();
+  private final AtomicLong maxReconnectMillis = new AtomicLong();
+  private final AtomicLong stalls = new AtomicLong();
+  private final Map<Connection, Listener> listeners = new ConcurrentHashMap<>();
+  private final Set<Connection> stalledConnections = ConcurrentHashMap.newKeySet();
+  private volatile long lastReconnectMillis;
+  private volatile int stalled;
+  private volatile boolean failed;
+  private ScheduledExecutorService watchdog;
+  private ExecutorService prober;
+
+  /**
+   * Registers the monitor with the given connection, if it is a Qpid connection.
+   *
+   * @param connection the physical connection
+   */
+  void register(Connection connection) {
+    if (connection instanceof JmsConnection jmsConnection) {
+      Listener listener = new Listener();
+      listeners.put(connection, listener);
+      jmsConnection.addConnectionListener(listener);
+    }
+  }
+
+  /**
+   * Unregisters the monitor from the given connection, when it is closed.
+   *
+   * @param connection the physical connection
+   */
+  void unregister(Connection connection) {
+    stalledConnections.remove(connection);
+    Listener listener = listeners.remove(connection);
+    if (listener != null) {
+      listener.dispose();
+      ((JmsConnection) connection).removeConnectionListener(listener);
+    }
+  }
+
+  /**
+   * Starts the watchdog, which probes the given physical connections in the given interval.
+   *
+   * @param connections the physical connections to probe
+   * @param interval the interval of the probes
+   * @param onStalled the handler of a connection that has stalled, which closes or replaces it
+   */
+  synchronized void watch(
+      Supplier<List<Connection>> connections, Duration interval, Consumer<Connection> onStalled) {
+    if (watchdog != null) {
+      return;
+    }
+    watchdog =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "aem-connection-watchdog");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long millis = interval.toMillis();
+    watchdog.scheduleWithFixedDelay(
+        () -> check(connections.get(), interval).forEach(onStalled),
+        millis,
+        millis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Probes the given connections.
+   *
+   * @param connections the physical connections to probe
+   * @param timeout the maximum time to wait for a probe
+   * @return the connections that stalled since the last check
+   */
+  @VisibleForTesting
+  List<Connection> check(List<Connection> connections, Duration timeout) {
+    List<Connection> newlyStalled = new ArrayList<>();
+    int unanswered = 0;
+    for (Connection physical : connections) {
+      Listener listener = listeners.get(physical);
+      if (listener != null && listener.isReconnecting()) {
+        // the failover transport is replacing the connection already
+        continue;
+      }
+      long started = System.nanoTime();
+      Future<?> probe = getProber().submit(() -> probe(physical));
+      try {
+        probe.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        stalledConnections.remove(physical);
+      } catch (ExecutionException | TimeoutException e) {
+        probe.cancel(true);
+        unanswered++;
+        if (stalledConnections.add(physical)) {
+          newlyStalled.add(physical);
+        }
+        logger.warn(
+            "The connection to the broker did not answer the probe after {} ms.",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+            e instanceof ExecutionException ? e.getCause() : e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return newlyStalled;
+      }
+    }
+    if (unanswered > 0 && stalled == 0) {
+      stalls.incrementAndGet();
+    }
+    stalled = unanswered;
+    return newlyStalled;
+  }
+
+  private static Void probe(Connection connection) throws JMSException {
+    Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    session.close();
+    return null;
+  }
+
+  private synchronized ExecutorService getProber() {
+    if (prober == null) {
+      prober =
+          Executors.newCachedThreadPool(
+              runnable -> {
+                Thread thread = new Thread(runnable, "aem-connection-probe");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    return prober;
+  }
+
+  /**
+   * Returns the health of the connections to the broker.
+   *
+   * @return the health
+   */
+  public Health getHealth() {
+    if (failed) {
+      return Health.FAILED;
+    } else if (isInterrupted()) {
+      return Health.RECONNECTING;
+    } else if (stalled > 0) {
+      return Health.STALLED;
+    }
+    return Health.HEALTHY;
+  }
+
+  /**
+   * Records published messages, which are counted if a connection is interrupted.
+   *
+   * @param messages the number of messages
+   */
+  public void recordPublish(int messages) {
+    if (isInterrupted()) {
+      outagePublishes.addAndGet(messages);
+    }
+  }
+
+  /**
+   * Returns whether a connection is interrupted and reconnecting.
+   *
+   * @return {@code true} if a connection is interrupted
+   */
+  public boolean isInterrupted() {
+    return interrupted.get() > 0;
+  }
+
+  /**
+   * Returns the number of interruptions of the connections.
+   *
+   * @return the number of interruptions
+   */
+  public long getInterruptions() {
+    return interruptions.get();
+  }
+
+  /**
+   * Returns the number of connections that failed finally, after all reconnect attempts.
+   *
+   * @return the number of failed connections
+   */
+  public long getFailures() {
+    return failures.get();
+  }
+
+  /**
+   * Returns the number of times the watchdog found a connection stalled.
+   *
+   * @return the number of stalls
+   */
+  public long getStalls() {
+    return stalls.get();
+  }
+
+  /**
+   * Returns the number of messages published while a connection was interrupted.
+   *
+   * @return the number of messages
+   */
+  public long getOutagePublishes() {
+    return outagePublishes.get();
+  }
+
+  /**
+   * Returns the time it took to restore the connection after the last interruption.
+   *
+   * @return the time in milliseconds
+   */
+  public long getLastReconnectMillis() {
+    return lastReconnectMillis;
+  }
+
+  /**
+   * Returns the longest time it took to restore a connection.
+   *
+   * @return the time in milliseconds
+   */
+  public long getMaxReconnectMillis() {
+    return maxReconnectMillis.get();
+  }
+
+  /** Stops the watchdog. */
+  synchronized void close() {
+    if (watchdog != null) {
+      watchdog.shutdownNow();
+      watchdog = null;
+    }
+    if (prober != null) {
+      prober.shutdownNow();
+      prober = null;
+    }
+  }
+
+  private class Listener extends JmsDefaultConnectionListener {
+
+    private boolean reconnecting;
+    private long interruptedAt;
+
+    private synchronized boolean isReconnecting() {
+      return reconnecting;
+    }
+
+    private synchronized void dispose() {
+      // a connection closed while reconnecting no longer counts as interrupted
+      if (reconnecting) {
+        reconnecting = false;
+        interrupted.decrementAndGet();
+      }
+    }
+
+    @Override
+    public synchronized void onConnectionInterrupted(URI remoteURI) {
+      if (!reconnecting) {
+        reconnecting = true;
+        interrupted.incrementAndGet();
+      }
+      interruptedAt = System.nanoTime();
+      interruptions.incrementAndGet();
+      logger.warn("The connection to the broker '{}' was interrupted, reconnecting.", remoteURI);
+    }
+
+    @Override
+    public synchronized void onConnectionEstablished(URI remoteURI) {
+      failed = false;
+    }
+
+    @Override
+    public synchronized void onConnectionRestored(URI remoteURI) {
+      // a restored connection ends a previous failure
+      failed = false;
+      if (!reconnecting) {
+        return;
+      }
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - interruptedAt);
+      reconnecting = false;
+      interrupted.decrementAndGet();
+      lastReconnectMillis = millis;
+      maxReconnectMillis.accumulateAndGet(millis, Math::max);
+      logger.info(
+          "Restored the connection to the broker '{}' after {} ms, {} messages were published"
+              + " during interruptions.",
+          remoteURI,
+          millis,
+          outagePublishes.get());
+    }
+
+    @Override
+    public synchronized void onConnectionFailure(Throwable error) {
+      if (reconnecting) {
+        reconnecting = false;
+        interrupted.decrementAndGet();
+      }
+      failures.incrementAndGet();
+      failed = true;
+      logger.error("The connection to the broker failed.", error);
+    }
+  }
+}
@@ -0,0 +1,300 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemConnectionPool shares the physical connections to the broker between the broker connections
+ * of the messaging services of a binding, which enable the {@code sharedConnection} property. Each
+ * broker connection gets its own {@link AemPooledConnection} handles on the physical connections,
+ * which are reference counted: a physical connection is started with the first handle started and
+ * closed with the last handle closed. Sessions are not pooled, they are opened and closed by the
+ * broker connections as without the pool. Only their number is limited, so that the services of a
+ * binding cannot exhaust the sessions of the shared connections. A physical connection that failed,
+ * or that the watchdog found stalled, is removed from the pool at once, so that a broker connection
+ * that reconnects gets a new one, while the other broker connections still hold handles on the
+ * failed one.
+ */
+class AemConnectionPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemConnectionPool.class);
+
+  private final ConnectionFactory factory;
+  private final Semaphore sessionPermits;
+  private final int maxSessions;
+  private final Duration sessionTimeout;
+  private final Duration healthCheckInterval;
+  private final AemConnectionMonitor monitor = new AemConnectionMonitor();
+  private final Map<String, AemConsumerOptions> consumerOptions = new ConcurrentHashMap<>();
+  private final List<Shared> connections = new ArrayList<>();
+
+  /**
+   * Creates a pool of connections opened with the given factory.
+   *
+   * @param factory the factory of the physical connections
+   * @param maxSessions the limit of the sessions open on the physical connections, {@code 0} for no
+   *     limit
+   * @param sessionTimeout the maximum time to wait for a session, if the limit is reached
+   * @param healthCheckInterval the interval of the probes of the watchdog, {@code 0} to disable it
+   */
+  AemConnectionPool(
+      ConnectionFactory factory,
+      int maxSessions,
+      Duration sessionTimeout,
+      Duration healthCheckInterval) {
+    this.factory = factory;
+    this.maxSessions = maxSessions;
+    this.sessionPermits = maxSessions > 0 ? new Semaphore(maxSessions) : null;
+    this.sessionTimeout = sessionTimeout;
+    this.healthCheckInterval = healthCheckInterval;
+  }
+
+  /**
+   * Returns a connection factory for a broker connection. Each connection created by the factory is
+   * a handle on the first physical connection of the pool, on which the factory has no open handle.
+   * The connections of a broker connection are thus distributed over the physical connections like
+   * without the pool, and a connection created again after a reconnect reuses the slot of the
+   * closed one instead of opening a further physical connection.
+   *
+   * @return the connection factory
+   */
+  ConnectionFactory newConnectionFactory() {
+    return new PooledConnectionFactory();
+  }
+
+  Map<String, AemConsumerOptions> getConsumerOptions() {
+    return consumerOptions;
+  }
+
+  AemConnectionMonitor getMonitor() {
+    return monitor;
+  }
+
+  /**
+   * Returns the open physical connections of the pool.
+   *
+   * @return the physical connections
+   */
+  synchronized List<Connection> getConnections() {
+    return connections.stream().filter(Objects::nonNull).map(Shared::getConnection).toList();
+  }
+
+  /**
+   * Returns the number of sessions currently open on the physical connections.
+   *
+   * @return the number of sessions, {@code 0} if the sessions are not limited
+   */
+  int getSessionsInUse() {
+    return sessionPermits != null ? maxSessions - sessionPermits.availablePermits() : 0;
+  }
+
+  private synchronized AemPooledConnection acquire(int index, ConnectionOpener opener)
+      throws JMSException {
+    while (connections.size() <= index) {
+      connections.add(null);
+    }
+    Shared shared = connections.get(index);
+    if (shared == null) {
+      logger.debug("Opening shared connection {} to the broker.", index + 1);
+      Connection connection = opener.open();
+      monitor.register(connection);
+      Shared opened = new Shared(connection);
+      connection.setExceptionListener(exception -> onException(opened, exception));
+      connections.set(index, opened);
+      shared = opened;
+      if (!healthCheckInterval.isZero()) {
+        monitor.watch(this::getConnections, healthCheckInterval, this::onStalled);
+      }
+    }
+    AemPooledConnection handle = new AemPooledConnection(this, shared);
+    shared.handles.add(handle);
+    return handle;
+  }
+
+  synchronized void release(Shared shared, AemPooledConnection handle) throws JMSException {
+    if (!shared.handles.remove(handle) || !shared.handles.isEmpty()) {
+      return;
+    }
+    evict(shared);
+    logger.debug("Closing a shared connection to the broker, it is no longer used.");
+    if (getConnections().isEmpty()) {
+      monitor.close();
+    }
+    monitor.unregister(shared.getConnection());
+    shared.getConnection().close();
+  }
+
+  @VisibleForTesting
+  void onStalled(Connection connection) {
+    Shared stalled;
+    synchronized (this) {
+      stalled =
+          connections.stream()
+              .filter(shared -> shared != null && shared.getConnection() == connection)
+              .findFirst()
+              .orElse(null);
+    }
+    if (stalled != null) {
+      onException(stalled, new JMSException("The connection to the broker stalled."));
+    }
+  }
+
+  private void onException(Shared shared, JMSException exception) {
+    // the handles of the failed connection are closed when their broker connections reconnect
+    if (evict(shared)) {
+      logger.warn("Removed a failed shared connection from the pool.");
+    }
+    shared.onException(exception);
+  }
+
+  /**
+   * Removes the given physical connection from its slot, so that the next handle acquired for the
+   * slot opens a new physical connection.
+   *
+   * @param shared the physical connection
+   * @return {@code true} if the connection was in the pool
+   */
+  private synchronized boolean evict(Shared shared) {
+    int index = connections.indexOf(shared);
+    if (index < 0) {
+      return false;
+    }
+    connections.set(index, null);
+    return true;
+  }
+
+  void acquireSessionPermit() throws JMSException {
+    if (sessionPermits == null) {
+      return;
+    }
+    try {
+      if (!sessionPermits.tryAcquire(sessionTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new JMSException(
+            "The limit of "
+                + maxSessions
+                + " sessions of the shared connection is still reached after waiting "
+                + sessionTimeout.toMillis()
+                + " ms.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JMSException("Interrupted while waiting for a session of the shared connection.");
+    }
+  }
+
+  void releaseSessionPermit() {
+    if (sessionPermits != null) {
+      sessionPermits.release();
+    }
+  }
+
+  private interface ConnectionOpener {
+    Connection open() throws JMSException;
+  }
+
+  /** A physical connection shared by the handles of several broker connections. */
+  static class Shared {
+
+    private final Connection connection;
+    private final List<AemPooledConnection> handles = new CopyOnWriteArrayList<>();
+    private int started;
+
+    private Shared(Connection connection) {
+      this.connection = connection;
+    }
+
+    Connection getConnection() {
+      return connection;
+    }
+
+    synchronized void start() throws JMSException {
+      if (started++ == 0) {
+        connection.start();
+      }
+    }
+
+    synchronized void stop() throws JMSException {
+      if (started > 0 && --started == 0) {
+        connection.stop();
+      }
+    }
+
+    boolean isShared() {
+      return handles.size() > 1;
+    }
+
+    void onException(JMSException exception) {
+      for (AemPooledConnection handle : handles) {
+        ExceptionListener listener = handle.getExceptionListener();
+        if (listener != null) {
+          listener.onException(exception);
+        }
+      }
+    }
+  }
+
+  private class PooledConnectionFactory implements ConnectionFactory {
+
+    private final List<AemPooledConnection> slots = new ArrayList<>();
+
+    @Override
+    public synchronized Connection createConnection() throws JMSException {
+      return acquireSlot(factory::createConnection);
+    }
+
+    @Override
+    public synchronized Connection createConnection(String userName, String password)
+        throws JMSException {
+      return acquireSlot(() -> factory.createConnection(userName, password));
+    }
+
+    private AemPooledConnection acquireSlot(ConnectionOpener opener) throws JMSException {
+      int index = 0;
+      while (index < slots.size() && !slots.get(index).isClosed()) {
+        index++;
+      }
+      AemPooledConnection handle = acquire(index, opener);
+      if (index < slots.size()) {
+        slots.set(index, handle);
+      } else {
+        slots.add(handle);
+      }
+      return handle;
+    }
+
+    @Override
+    public JMSContext createContext() {
+      return factory.createContext();
+    }
+
+    @Override
+    public JMSContext createContext(String userName, String password) {
+      return factory.createContext(userName, password);
+    }
+
+    @Override
+    public JMSContext createContext(String userName, String password, int sessionMode) {
+      return factory.createContext(userName, password, sessionMode);
+    }
+
+    @Override
+    public JMSContext createContext(int sessionMode) {
+      return factory.createContext(sessionMode);
+    }
+  }
+}
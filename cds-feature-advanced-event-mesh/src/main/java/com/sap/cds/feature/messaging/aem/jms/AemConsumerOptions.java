@@ -0,0 +1,434 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import java.time.Duration;
+
+/**
+ * AemConsumerOptions configure how the messages of a queue are consumed. They are registered for a
+ * queue with {@link AemBrokerConnection#setConsumerOptions(String, AemConsumerOptions)} before the
+ * queue listener is registered.
+ */
+public class AemConsumerOptions {
+
+  private int concurrency = 1;
+  private String orderingKey;
+  private int prefetch = -1;
+  private boolean adaptivePrefetch;
+  private boolean virtualThreads;
+  private int batchSize = 1;
+  private Duration batchTimeout = Duration.ofMillis(100);
+  private long payloadBudget = -1;
+  private AemPayloadBudget budget;
+  private int deduplicationSize;
+  private Duration deduplicationTtl = Duration.ofMinutes(10);
+  private String deduplicationKey;
+  private AemDeduplicationCache deduplicationCache;
+  private String selector;
+  private Duration redeliveryDelay = Duration.ZERO;
+  private Duration redeliveryDelayMax = Duration.ofMinutes(1);
+  private double redeliveryMultiplier = 2;
+
+  /**
+   * Returns a copy of these options, which does not share the payload budget with these options.
+   *
+   * @return the copy of these options
+   */
+  public AemConsumerOptions copy() {
+    return new AemConsumerOptions()
+        .setConcurrency(concurrency)
+        .setOrderingKey(orderingKey)
+        .setPrefetch(prefetch)
+        .setAdaptivePrefetch(adaptivePrefetch)
+        .setVirtualThreads(virtualThreads)
+        .setBatchSize(batchSize)
+        .setBatchTimeout(batchTimeout)
+        .setPayloadBudget(payloadBudget)
+        .setDeduplicationSize(deduplicationSize)
+        .setDeduplicationTtl(deduplicationTtl)
+        .setDeduplicationKey(deduplicationKey)
+        .setSelector(selector)
+        .setRedeliveryDelay(redeliveryDelay)
+        .setRedeliveryDelayMax(redeliveryDelayMax)
+        .setRedeliveryMultiplier(redeliveryMultiplier);
+  }
+
+  /**
+   * Returns the number of messages of a consumer that are processed in parallel.
+   *
+   * @return the number of messages processed in parallel
+   */
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * Sets the number of messages of a consumer that are processed in parallel. With a value greater
+   * than {@code 1}, the messages are dispatched to a pool of threads and acknowledged in the order
+   * in which they have been received.
+   *
+   * @param concurrency the number of messages processed in parallel
+   * @return these options
+   */
+  public AemConsumerOptions setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  /**
+   * Returns the name of the message property, whose value keeps the order of the messages.
+   *
+   * @return the name of the message property or {@code null}
+   */
+  public String getOrderingKey() {
+    return orderingKey;
+  }
+
+  /**
+   * Sets the name of the message property, whose value keeps the order of the messages. Messages
+   * with the same value are processed one after the other, messages with different values in
+   * parallel.
+   *
+   * @param orderingKey the name of the message property or {@code null}
+   * @return these options
+   */
+  public AemConsumerOptions setOrderingKey(String orderingKey) {
+    this.orderingKey = orderingKey;
+    return this;
+  }
+
+  /**
+   * Returns the number of messages the broker sends to a consumer in advance.
+   *
+   * @return the prefetch or a negative value, if the prefetch of the connection applies
+   */
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  /**
+   * Sets the number of messages the broker sends to a consumer in advance. A low prefetch bounds
+   * the memory used for large messages, a high prefetch maximizes the throughput of small
+   * messages.
+   *
+   * @param prefetch the prefetch or a negative value, if the prefetch of the connection applies
+   * @return these options
+   */
+  public AemConsumerOptions setPrefetch(int prefetch) {
+    this.prefetch = prefetch;
+    return this;
+  }
+
+  /**
+   * Returns whether the number of messages taken from the prefetch buffer adapts to the latency of
+   * the handlers.
+   *
+   * @return {@code true} if adaptive
+   */
+  public boolean isAdaptivePrefetch() {
+    return adaptivePrefetch;
+  }
+
+  /**
+   * Sets whether the number of messages taken from the prefetch buffer adapts to the latency of the
+   * handlers. The messages are then handed over to handler threads and the number of messages
+   * waiting for a handler grows while the handlers keep up and shrinks when they fall behind.
+   *
+   * @param adaptivePrefetch {@code true} if adaptive
+   * @return these options
+   */
+  public AemConsumerOptions setAdaptivePrefetch(boolean adaptivePrefetch) {
+    this.adaptivePrefetch = adaptivePrefetch;
+    return this;
+  }
+
+  /**
+   * Returns whether the messages processed in parallel are processed on virtual threads.
+   *
+   * @return {@code true} if processed on virtual threads
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Sets whether the messages processed in parallel are processed on virtual threads instead of a
+   * pool of platform threads. Virtual threads require Java 21 or later, on older runtimes a pool of
+   * platform threads is used.
+   *
+   * @param virtualThreads {@code true} if processed on virtual threads
+   * @return these options
+   */
+  public AemConsumerOptions setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of messages received and acknowledged as a batch.
+   *
+   * @return the maximum number of messages of a batch
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the maximum number of messages received and acknowledged as a batch. With a value greater
+   * than {@code 1}, the messages are received in batches, handed to the queue listener one after
+   * the other and acknowledged at once, after all of them have been processed.
+   *
+   * @param batchSize the maximum number of messages of a batch
+   * @return these options
+   */
+  public AemConsumerOptions setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum time to wait for further messages of a batch.
+   *
+   * @return the maximum time to wait
+   */
+  public Duration getBatchTimeout() {
+    return batchTimeout;
+  }
+
+  /**
+   * Sets the maximum time to wait for further messages of a batch, after its first message has been
+   * received.
+   *
+   * @param batchTimeout the maximum time to wait
+   * @return these options
+   */
+  public AemConsumerOptions setBatchTimeout(Duration batchTimeout) {
+    this.batchTimeout = batchTimeout;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of bytes of payloads taken from the prefetch buffers but not
+   * processed yet.
+   *
+   * @return the maximum number of bytes or a negative value, if the payloads are not limited
+   */
+  public long getPayloadBudget() {
+    return payloadBudget;
+  }
+
+  /**
+   * Sets the maximum number of bytes of payloads taken from the prefetch buffers but not processed
+   * yet. The budget is shared by all consumers of the queue the options are registered for and
+   * counts the payload of bytes messages. Batches of messages end early, once their payload reaches
+   * the budget.
+   *
+   * @param payloadBudget the maximum number of bytes or a negative value, if the payloads are not
+   *     limited
+   * @return these options
+   */
+  public synchronized AemConsumerOptions setPayloadBudget(long payloadBudget) {
+    this.payloadBudget = payloadBudget;
+    this.budget = null;
+    return this;
+  }
+
+  synchronized AemPayloadBudget getBudget() {
+    if (payloadBudget <= 0) {
+      return null;
+    }
+    if (budget == null) {
+      budget = new AemPayloadBudget(payloadBudget);
+    }
+    return budget;
+  }
+
+  /**
+   * Returns the maximum number of message IDs remembered to skip duplicate messages.
+   *
+   * @return the maximum number of message IDs or {@code 0}, if duplicates are not skipped
+   */
+  public int getDeduplicationSize() {
+    return deduplicationSize;
+  }
+
+  /**
+   * Sets the maximum number of message IDs remembered to skip duplicate messages. Messages with the
+   * ID of a message, which has already been processed by a consumer of the queue, are acknowledged
+   * without handing them to the queue listener.
+   *
+   * @param deduplicationSize the maximum number of message IDs or {@code 0}, if duplicates are not
+   *     skipped
+   * @return these options
+   */
+  public synchronized AemConsumerOptions setDeduplicationSize(int deduplicationSize) {
+    this.deduplicationSize = deduplicationSize;
+    this.deduplicationCache = null;
+    return this;
+  }
+
+  /**
+   * Returns the time a message ID is remembered to skip duplicate messages.
+   *
+   * @return the time to live of a message ID
+   */
+  public Duration getDeduplicationTtl() {
+    return deduplicationTtl;
+  }
+
+  /**
+   * Sets the time a message ID is remembered to skip duplicate messages.
+   *
+   * @param deduplicationTtl the time to live of a message ID
+   * @return these options
+   */
+  public synchronized AemConsumerOptions setDeduplicationTtl(Duration deduplicationTtl) {
+    this.deduplicationTtl = deduplicationTtl;
+    this.deduplicationCache = null;
+    return this;
+  }
+
+  /**
+   * Returns the name of the message property identifying duplicate messages.
+   *
+   * @return the name of the message property or {@code null}, if the JMS message ID applies
+   */
+  public String getDeduplicationKey() {
+    return deduplicationKey;
+  }
+
+  /**
+   * Sets the name of the message property identifying duplicate messages, e.g. {@code
+   * cloudEvents_id}.
+   *
+   * @param deduplicationKey the name of the message property or {@code null}, if the JMS message
+   *     ID applies
+   * @return these options
+   */
+  public AemConsumerOptions setDeduplicationKey(String deduplicationKey) {
+    this.deduplicationKey = deduplicationKey;
+    return this;
+  }
+
+  /**
+   * Returns the JMS message selector of the consumers.
+   *
+   * @return the message selector or {@code null}
+   */
+  public String getSelector() {
+    return selector;
+  }
+
+  /**
+   * Sets the JMS message selector of the consumers, e.g. {@code cloudEvents_type = 'created'}. The
+   * broker only delivers the messages matching the selector, the other messages stay on the queue.
+   *
+   * @param selector the message selector or {@code null}
+   * @return these options
+   */
+  public AemConsumerOptions setSelector(String selector) {
+    this.selector = selector;
+    return this;
+  }
+
+  /**
+   * Returns the delay of the first redelivery of a message, which the consumer waits before handing
+   * it to the queue listener.
+   *
+   * @return the delay of the first redelivery or {@link Duration#ZERO}, if not delayed
+   */
+  public Duration getRedeliveryDelay() {
+    return redeliveryDelay;
+  }
+
+  /**
+   * Sets the delay of the first redelivery of a message, which the consumer waits before handing
+   * it to the queue listener. The delay of further redeliveries is multiplied by the redelivery
+   * multiplier, up to the maximum redelivery delay. The consumer does not block while a message is
+   * delayed, it is received on a session with individual acknowledgement and handed to the queue
+   * listener by a scheduler thread.
+   *
+   * @param redeliveryDelay the delay of the first redelivery or {@link Duration#ZERO}, if not
+   *     delayed
+   * @return these options
+   */
+  public AemConsumerOptions setRedeliveryDelay(Duration redeliveryDelay) {
+    this.redeliveryDelay = redeliveryDelay;
+    return this;
+  }
+
+  /**
+   * Returns the maximum delay of a redelivered message.
+   *
+   * @return the maximum delay
+   */
+  public Duration getRedeliveryDelayMax() {
+    return redeliveryDelayMax;
+  }
+
+  /**
+   * Sets the maximum delay of a redelivered message.
+   *
+   * @param redeliveryDelayMax the maximum delay
+   * @return these options
+   */
+  public AemConsumerOptions setRedeliveryDelayMax(Duration redeliveryDelayMax) {
+    this.redeliveryDelayMax = redeliveryDelayMax;
+    return this;
+  }
+
+  /**
+   * Returns the factor the delay is multiplied by for each further redelivery.
+   *
+   * @return the factor
+   */
+  public double getRedeliveryMultiplier() {
+    return redeliveryMultiplier;
+  }
+
+  /**
+   * Sets the factor the delay is multiplied by for each further redelivery.
+   *
+   * @param redeliveryMultiplier the factor
+   * @return these options
+   */
+  public AemConsumerOptions setRedeliveryMultiplier(double redeliveryMultiplier) {
+    this.redeliveryMultiplier = redeliveryMultiplier;
+    return this;
+  }
+
+  synchronized AemDeduplicationCache getDeduplicationCache() {
+    if (deduplicationSize <= 0) {
+      return null;
+    }
+    if (deduplicationCache == null) {
+      deduplicationCache = new AemDeduplicationCache(deduplicationSize, deduplicationTtl);
+    }
+    return deduplicationCache;
+  }
+
+  boolean isBatching() {
+    return batchSize > 1;
+  }
+
+  boolean isDispatching() {
+    return !isBatching() && (concurrency > 1 || adaptivePrefetch);
+  }
+
+  boolean isDelayingRedeliveries() {
+    return redeliveryDelay.toMillis() > 0;
+  }
+
+  /**
+   * Returns whether the options differ from the default consumption of a queue.
+   *
+   * @return {@code true} if the options need to be applied to the consumers of a queue
+   */
+  public boolean isCustomized() {
+    return isBatching()
+        || isDispatching()
+        || prefetch >= 0
+        || payloadBudget > 0
+        || deduplicationSize > 0
+        || (selector != null && !selector.isBlank())
+        || isDelayingRedeliveries();
+  }
+}
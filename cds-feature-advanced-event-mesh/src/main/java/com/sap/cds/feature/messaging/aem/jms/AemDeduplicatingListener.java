@@ -0,0 +1,75 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemDeduplicatingListener acknowledges messages, which have already been processed, without
+ * handing them to the queue listener. A message is remembered in the {@link AemDeduplicationCache}
+ * once the queue listener has acknowledged it, so that messages failed to process are still
+ * delivered again.
+ */
+class AemDeduplicatingListener implements MessageListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemDeduplicatingListener.class);
+
+  private final MessageListener listener;
+  private final AemDeduplicationCache cache;
+  private final String deduplicationKey;
+
+  AemDeduplicatingListener(
+      MessageListener listener, AemDeduplicationCache cache, String deduplicationKey) {
+    this.listener = listener;
+    this.cache = cache;
+    this.deduplicationKey = deduplicationKey;
+  }
+
+  @Override
+  public void onMessage(Message message) {
+    String id = getId(message);
+    if (id == null) {
+      listener.onMessage(message);
+      return;
+    }
+
+    if (cache.contains(id, System.currentTimeMillis())) {
+      logger.debug(
+          "Acknowledged duplicate message '{}' without processing it, {} of {} messages skipped.",
+          id,
+          cache.getHits(),
+          cache.getHits() + cache.getMisses());
+      acknowledge(message);
+      return;
+    }
+
+    AtomicBoolean acknowledged = new AtomicBoolean();
+    listener.onMessage(AemMessages.interceptAcknowledge(message, () -> acknowledged.set(true)));
+    if (acknowledged.get()) {
+      cache.add(id, System.currentTimeMillis());
+      acknowledge(message);
+    }
+  }
+
+  private String getId(Message message) {
+    try {
+      return deduplicationKey != null
+          ? message.getStringProperty(deduplicationKey)
+          : message.getJMSMessageID();
+    } catch (JMSException e) {
+      logger.debug("Failed to read the deduplication key of the message.", e);
+      return null;
+    }
+  }
+
+  private static void acknowledge(Message message) {
+    try {
+      message.acknowledge();
+    } catch (JMSException e) {
+      logger.warn("Failed to acknowledge the message.", e);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import java.time.Duration;
+
+/**
+ * AemDeduplicationCache remembers the IDs of processed messages for a limited time. The IDs are
+ * kept as 64-bit hashes in an open addressing table of primitive arrays, so that an entry costs two
+ * longs and no objects. When the cache is full, the oldest entry is evicted. Entries expire after
+ * the given time to live.
+ */
+class AemDeduplicationCache {
+
+  private static final long EMPTY = 0;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final long[] keys;
+  private final long[] expiries;
+  private final int mask;
+  // the keys in the order of insertion, to evict the oldest entry
+  private final long[] insertions;
+  private int oldest;
+  private int size;
+
+  private long hits;
+  private long misses;
+
+  AemDeduplicationCache(int maxEntries, Duration ttl) {
+    this.maxEntries = Math.max(maxEntries, 1);
+    this.ttlMillis = ttl.toMillis();
+    int capacity = Integer.highestOneBit(this.maxEntries * 2 - 1) << 1;
+    this.keys = new long[capacity];
+    this.expiries = new long[capacity];
+    this.mask = capacity - 1;
+    this.insertions = new long[this.maxEntries];
+  }
+
+  /**
+   * Returns whether a message with the given ID has been processed and counts the lookup.
+   *
+   * @param id the ID of the message
+   * @param now the current time in milliseconds
+   * @return {@code true} if the message is a duplicate
+   */
+  synchronized boolean contains(String id, long now) {
+    int index = indexOf(hash(id));
+    if (index >= 0 && expiries[index] > now) {
+      hits++;
+      return true;
+    }
+    misses++;
+    return false;
+  }
+
+  /**
+   * Remembers the ID of a processed message.
+   *
+   * @param id the ID of the message
+   * @param now the current time in milliseconds
+   */
+  synchronized void add(String id, long now) {
+    long key = hash(id);
+    int index = indexOf(key);
+    if (index >= 0) {
+      expiries[index] = now + ttlMillis;
+      return;
+    }
+    if (size == maxEntries) {
+      remove(insertions[oldest]);
+      oldest = (oldest + 1) % maxEntries;
+      size--;
+    }
+    insertions[(oldest + size) % maxEntries] = key;
+    size++;
+
+    int slot = slot(key);
+    while (keys[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    expiries[slot] = now + ttlMillis;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  private int indexOf(long key) {
+    for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private void remove(long key) {
+    int slot = indexOf(key);
+    if (slot < 0) {
+      return;
+    }
+    // shifts the following entries of the probe sequence back, instead of leaving a tombstone
+    int next = (slot + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        keys[slot] = keys[next];
+        expiries[slot] = expiries[next];
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[slot] = EMPTY;
+    expiries[slot] = 0;
+  }
+
+  private int slot(long key) {
+    return (int) (key ^ (key >>> 32)) & mask;
+  }
+
+  static long hash(String id) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < id.length(); i++) {
+      hash ^= id.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    // zero marks an empty slot
+    return hash != EMPTY ? hash : 1;
+  }
+}
@@ -0,0 +1,164 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+
+/**
+ * AemDeliveryGate stops the delivery of messages to the consumers of an {@link
+ * AemPooledConnection}, while the shared physical connection keeps delivering messages to the
+ * consumers of other handles. Like a stopped connection, a closed gate holds back the messages of
+ * its consumers and {@link #pause()} waits for the listeners in progress to return. The gate is
+ * closed until the handle is started.
+ */
+class AemDeliveryGate {
+
+  private boolean open;
+  private boolean closed;
+  private int running;
+
+  /** Opens the gate, so that the consumers receive messages again. */
+  synchronized void open() {
+    if (!closed) {
+      open = true;
+      notifyAll();
+    }
+  }
+
+  /** Closes the gate and waits for the listeners in progress to return. */
+  synchronized void pause() {
+    open = false;
+    boolean interrupted = false;
+    while (running > 0) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Closes the gate for good. The messages held back are rejected, so that they are released with
+   * their session instead of being acknowledged.
+   */
+  synchronized void close() {
+    closed = true;
+    open = false;
+    notifyAll();
+  }
+
+  synchronized boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Returns a consumer whose messages pass the gate.
+   *
+   * @param consumer the consumer
+   * @return the gated consumer
+   */
+  MessageConsumer gated(MessageConsumer consumer) {
+    return new GatedConsumer(consumer);
+  }
+
+  private MessageListener gated(MessageListener listener) {
+    return message -> {
+      enter();
+      try {
+        listener.onMessage(message);
+      } finally {
+        exit();
+      }
+    };
+  }
+
+  private synchronized void enter() {
+    boolean interrupted = false;
+    while (!open && !closed) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (closed) {
+      // the message is not acknowledged, the session releases it when it is closed
+      throw new IllegalStateException("The consumer has been closed.");
+    }
+    running++;
+  }
+
+  private synchronized void exit() {
+    running--;
+    notifyAll();
+  }
+
+  private synchronized boolean awaitOpen(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    long remaining = timeoutMillis;
+    while (!open && !closed && (timeoutMillis == 0 || remaining > 0)) {
+      try {
+        wait(timeoutMillis == 0 ? 0 : remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return open;
+  }
+
+  private class GatedConsumer implements MessageConsumer {
+
+    private final MessageConsumer delegate;
+    private MessageListener listener;
+
+    private GatedConsumer(MessageConsumer delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public String getMessageSelector() throws JMSException {
+      return delegate.getMessageSelector();
+    }
+
+    @Override
+    public synchronized MessageListener getMessageListener() {
+      return listener;
+    }
+
+    @Override
+    public synchronized void setMessageListener(MessageListener listener) throws JMSException {
+      this.listener = listener;
+      delegate.setMessageListener(listener != null ? gated(listener) : null);
+    }
+
+    @Override
+    public Message receive() throws JMSException {
+      return awaitOpen(0) ? delegate.receive() : null;
+    }
+
+    @Override
+    public Message receive(long timeout) throws JMSException {
+      return awaitOpen(timeout) ? delegate.receive(timeout) : null;
+    }
+
+    @Override
+    public Message receiveNoWait() throws JMSException {
+      return isOpen() ? delegate.receiveNoWait() : null;
+    }
+
+    @Override
+    public void close() throws JMSException {
+      delegate.close();
+    }
+  }
+}
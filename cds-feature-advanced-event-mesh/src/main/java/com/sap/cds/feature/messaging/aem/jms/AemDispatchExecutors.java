@@ -0,0 +1,75 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemDispatchExecutors creates the executors running the message handlers of a consumer. Virtual
+ * threads are used if the runtime supports them (Java 21 or later), a bounded pool of platform
+ * threads otherwise. The virtual thread executor is looked up reflectively, as the plugin is
+ * compiled for Java 17.
+ */
+final class AemDispatchExecutors {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemDispatchExecutors.class);
+  private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+  private AemDispatchExecutors() {}
+
+  /**
+   * Returns whether the runtime supports virtual threads.
+   *
+   * @return {@code true} if virtual threads are supported
+   */
+  static boolean isVirtualThreadSupported() {
+    return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+  }
+
+  /**
+   * Creates the executor running the message handlers of a consumer.
+   *
+   * @param concurrency the maximum number of handlers running in parallel
+   * @param virtualThreads {@code true}, if the handlers should run on virtual threads
+   * @return the executor
+   */
+  static ExecutorService create(int concurrency, boolean virtualThreads) {
+    if (virtualThreads) {
+      if (isVirtualThreadSupported()) {
+        try {
+          return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+          logger.warn("Failed to create a virtual thread executor, using platform threads.", e);
+        }
+      } else {
+        logger.info(
+            "Virtual threads are not supported by Java {}, using {} platform threads.",
+            Runtime.version().feature(),
+            concurrency);
+      }
+    }
+    return createPlatformExecutor(concurrency);
+  }
+
+  private static ExecutorService createPlatformExecutor(int concurrency) {
+    AtomicInteger threads = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        Math.max(concurrency, 1),
+        runnable -> {
+          Thread thread = new Thread(runnable, "aem-dispatch-" + threads.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static Method findVirtualThreadExecutor() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
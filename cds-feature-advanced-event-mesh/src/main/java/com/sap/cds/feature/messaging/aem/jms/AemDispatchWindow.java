@@ -0,0 +1,94 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+/**
+ * AemDispatchWindow limits the messages received by a consumer but not processed yet. While the
+ * window is full, the consumer does not take further messages from its prefetch buffer, so that the
+ * broker stops sending more messages once the buffer is full as well.
+ *
+ * <p>An adaptive window grows by one message for each message processed without having waited for
+ * a handler, and shrinks by a tenth for each message that has waited longer than it took to process
+ * it, i.e. when the handlers fall behind. It stays between the given minimum and maximum.
+ */
+class AemDispatchWindow {
+
+  private static final double DECREASE_FACTOR = 0.9;
+
+  private final int min;
+  private final int max;
+  private final boolean adaptive;
+  private double limit;
+  private int inFlight;
+
+  private AemDispatchWindow(int min, int max, boolean adaptive) {
+    this.min = Math.max(min, 1);
+    this.max = Math.max(max, this.min);
+    this.adaptive = adaptive;
+    this.limit = adaptive ? this.min : this.max;
+  }
+
+  static AemDispatchWindow fixed(int size) {
+    return new AemDispatchWindow(size, size, false);
+  }
+
+  static AemDispatchWindow adaptive(int min, int max) {
+    return new AemDispatchWindow(min, max, true);
+  }
+
+  /** Waits until the window has room for another message. */
+  synchronized void acquire() {
+    boolean interrupted = false;
+    while (inFlight >= (int) limit) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    inFlight++;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Releases a processed message from the window.
+   *
+   * @param waitNanos the time the message has waited for a handler
+   * @param processNanos the time the handler took to process the message
+   */
+  synchronized void release(long waitNanos, long processNanos) {
+    inFlight--;
+    if (adaptive) {
+      if (waitNanos > processNanos) {
+        limit = Math.max(min, limit * DECREASE_FACTOR);
+      } else {
+        limit = Math.min(max, limit + 1);
+      }
+    }
+    notifyAll();
+  }
+
+  /** Releases a message from the window, which has been discarded without being processed. */
+  synchronized void release() {
+    inFlight--;
+    notifyAll();
+  }
+
+  /**
+   * Returns the current size of the window.
+   *
+   * @return the size of the window
+   */
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /**
+   * Returns the number of messages received but not processed yet.
+   *
+   * @return the number of messages in the window
+   */
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+}
@@ -0,0 +1,205 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemKeyedDispatcher processes the messages of a consumer in parallel. Each message is dispatched
+ * to one of a fixed number of lanes, which process their messages one after the other. Messages
+ * with the same ordering key are always dispatched to the same lane and thus keep their order,
+ * messages without ordering key are distributed round-robin. The messages are acknowledged in the
+ * order in which they have been received. The number of messages waiting for a lane is limited by
+ * an {@link AemDispatchWindow} and optionally the bytes of their payloads by an {@link
+ * AemPayloadBudget}.
+ *
+ * <p>The lanes share one executor, which either runs each lane on a virtual thread or on one of a
+ * pool of platform threads, see {@link AemDispatchExecutors}. As a lane processes its messages one
+ * after the other, at most as many handlers as lanes run in parallel.
+ */
+class AemKeyedDispatcher implements MessageListener, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemKeyedDispatcher.class);
+
+  private final MessageListener listener;
+  private final String orderingKey;
+  private final ExecutorService executor;
+  private final Lane[] lanes;
+  private final AemDispatchWindow window;
+  private final AemPayloadBudget budget;
+  private final AemOrderedAcknowledger acknowledger = new AemOrderedAcknowledger();
+
+  // only accessed by the session thread delivering the messages
+  private long sequence;
+
+  AemKeyedDispatcher(
+      MessageListener listener, String orderingKey, int concurrency, AemDispatchWindow window) {
+    this(listener, orderingKey, concurrency, window, null, false);
+  }
+
+  AemKeyedDispatcher(
+      MessageListener listener,
+      String orderingKey,
+      int concurrency,
+      AemDispatchWindow window,
+      AemPayloadBudget budget,
+      boolean virtualThreads) {
+    this.listener = listener;
+    this.orderingKey = orderingKey;
+    this.executor = AemDispatchExecutors.create(concurrency, virtualThreads);
+    this.lanes = new Lane[concurrency];
+    for (int i = 0; i < concurrency; i++) {
+      this.lanes[i] = new Lane();
+    }
+    this.window = window;
+    this.budget = budget;
+  }
+
+  @Override
+  public void onMessage(Message message) {
+    long messageSequence = this.sequence++;
+    String key = getKey(message);
+    int lane =
+        key != null
+            ? Math.floorMod(key.hashCode(), lanes.length)
+            : (int) Math.floorMod(messageSequence, (long) lanes.length);
+
+    // limits the messages received but not processed yet
+    window.acquire();
+    long payloadSize = budget != null ? AemPayloadBudget.getPayloadSize(message) : 0;
+    if (budget != null) {
+      budget.acquire(payloadSize);
+    }
+    lanes[lane].dispatch(new Dispatch(messageSequence, message, payloadSize, System.nanoTime()));
+  }
+
+  private void process(long messageSequence, Message message, long payloadSize, long dispatched) {
+    AtomicBoolean acknowledged = new AtomicBoolean();
+    long started = System.nanoTime();
+    try {
+      listener.onMessage(
+          AemMessages.interceptAcknowledge(message, () -> acknowledged.set(true)));
+    } catch (RuntimeException e) {
+      logger.error("The queue listener failed to process the message.", e);
+    } finally {
+      window.release(started - dispatched, System.nanoTime() - started);
+      if (budget != null) {
+        budget.release(payloadSize);
+      }
+      try {
+        acknowledger.complete(messageSequence, message, acknowledged.get());
+      } catch (JMSException e) {
+        logger.warn("Failed to acknowledge the processed messages.", e);
+      }
+    }
+  }
+
+  private void discard(long messageSequence, Message message, long payloadSize) {
+    window.release();
+    if (budget != null) {
+      budget.release(payloadSize);
+    }
+    try {
+      // settled as failed, so that the broker delivers the message again
+      acknowledger.complete(messageSequence, message, false);
+    } catch (JMSException e) {
+      logger.warn("Failed to settle the discarded message.", e);
+    }
+  }
+
+  private String getKey(Message message) {
+    if (orderingKey == null) {
+      return null;
+    }
+    try {
+      return message.getStringProperty(orderingKey);
+    } catch (JMSException e) {
+      logger.debug("Failed to read the ordering key '{}' of the message.", orderingKey, e);
+      return null;
+    }
+  }
+
+  /**
+   * Waits for the dispatched messages to be processed and acknowledged. Messages dispatched
+   * afterwards are not processed, the broker delivers them again.
+   *
+   * @param timeoutMillis the maximum time to wait
+   * @return {@code true} if all dispatched messages have been processed
+   */
+  boolean drain(long timeoutMillis) {
+    executor.shutdown();
+    try {
+      if (executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    logger.warn(
+        "Timed out waiting for {} dispatched messages to be processed.", window.getInFlight());
+    return false;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  /** A message dispatched to a lane. */
+  private record Dispatch(long sequence, Message message, long payloadSize, long dispatched) {}
+
+  /** Processes its messages one after the other on the shared executor, while it has any. */
+  private final class Lane {
+
+    private final Queue<Dispatch> tasks = new ArrayDeque<>();
+    private boolean active;
+
+    void dispatch(Dispatch task) {
+      List<Dispatch> discarded;
+      synchronized (this) {
+        tasks.add(task);
+        if (active) {
+          return;
+        }
+        active = true;
+        try {
+          executor.execute(this::drain);
+          return;
+        } catch (RejectedExecutionException e) {
+          active = false;
+          discarded = new ArrayList<>(tasks);
+          tasks.clear();
+        }
+      }
+      logger.debug(
+          "Discarded {} messages dispatched after the consumer has been closed.", discarded.size());
+      for (Dispatch rejected : discarded) {
+        discard(rejected.sequence(), rejected.message(), rejected.payloadSize());
+      }
+    }
+
+    private void drain() {
+      while (true) {
+        Dispatch task;
+        synchronized (this) {
+          task = tasks.poll();
+          if (task == null) {
+            active = false;
+            return;
+          }
+        }
+        process(task.sequence(), task.message(), task.payloadSize(), task.dispatched());
+      }
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemMessageConsumer is the consumer of a queue with {@link AemConsumerOptions}. It applies the
+ * options to the message listener registered by the queue listener.
+ */
+class AemMessageConsumer implements MessageConsumer {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemMessageConsumer.class);
+  private static final int MAX_PENDING_PER_LANE = 100;
+  private static final int DEFAULT_MAX_ADAPTIVE_WINDOW = 1000;
+
+  private final MessageConsumer delegate;
+  private final AemConsumerOptions options;
+
+  private MessageListener listener;
+  private AemKeyedDispatcher dispatcher;
+  private AemBatchReceiver batchReceiver;
+  private AemRedeliveryDelay redeliveryDelay;
+
+  AemMessageConsumer(MessageConsumer delegate, AemConsumerOptions options) {
+    this.delegate = delegate;
+    this.options = options;
+  }
+
+  @Override
+  public synchronized void setMessageListener(MessageListener messageListener)
+      throws JMSException {
+    closeListener();
+    this.listener = messageListener;
+    MessageListener listener = messageListener;
+    if (listener != null && options.isDelayingRedeliveries()) {
+      this.redeliveryDelay =
+          new AemRedeliveryDelay(
+              options.getRedeliveryDelay(),
+              options.getRedeliveryDelayMax(),
+              options.getRedeliveryMultiplier());
+    }
+    if (listener != null && options.getDeduplicationCache() != null) {
+      listener =
+          new AemDeduplicatingListener(
+              listener, options.getDeduplicationCache(), options.getDeduplicationKey());
+    }
+    if (listener != null && options.isBatching()) {
+      // the messages are received by the batch receiver instead of being delivered by the session
+      this.batchReceiver =
+          new AemBatchReceiver(
+              delegate,
+              listener,
+              options.getBatchSize(),
+              options.getBatchTimeout(),
+              options.getPayloadBudget(),
+              redeliveryDelay);
+      batchReceiver.start();
+    } else if (listener != null && options.isDispatching()) {
+      int concurrency = Math.max(options.getConcurrency(), 1);
+      AemDispatchWindow window =
+          options.isAdaptivePrefetch()
+              ? AemDispatchWindow.adaptive(
+                  concurrency,
+                  options.getPrefetch() > 0 ? options.getPrefetch() : DEFAULT_MAX_ADAPTIVE_WINDOW)
+              : AemDispatchWindow.fixed(concurrency * MAX_PENDING_PER_LANE);
+      this.dispatcher =
+          new AemKeyedDispatcher(
+              listener,
+              options.getOrderingKey(),
+              concurrency,
+              window,
+              options.getBudget(),
+              options.isVirtualThreads());
+      delegate.setMessageListener(delaying(dispatcher));
+    } else if (listener != null && redeliveryDelay != null) {
+      // the delayed messages are settled by the scheduler thread instead of the delivery thread
+      if (options.getBudget() != null) {
+        listener = withBudget(listener, options.getBudget());
+      }
+      delegate.setMessageListener(redeliveryDelay.delaying(settling(listener)));
+    } else if (listener != null && options.getBudget() != null) {
+      delegate.setMessageListener(withBudget(listener, options.getBudget()));
+    } else {
+      delegate.setMessageListener(listener);
+    }
+  }
+
+  private MessageListener delaying(MessageListener listener) {
+    return redeliveryDelay != null ? redeliveryDelay.delaying(listener) : listener;
+  }
+
+  private static MessageListener settling(MessageListener listener) {
+    return message -> {
+      try {
+        AemMessages.process(listener, message);
+      } catch (JMSException e) {
+        logger.warn("Failed to settle the message.", e);
+      }
+    };
+  }
+
+  private static MessageListener withBudget(MessageListener listener, AemPayloadBudget budget) {
+    return message -> {
+      long payloadSize = AemPayloadBudget.getPayloadSize(message);
+      budget.acquire(payloadSize);
+      try {
+        listener.onMessage(message);
+      } finally {
+        budget.release(payloadSize);
+      }
+    };
+  }
+
+  /**
+   * Waits for the messages already taken by the dispatcher or batch receiver to be processed. No
+   * further messages are taken afterwards.
+   *
+   * @param deadline the deadline in terms of {@link System#nanoTime()}
+   * @return {@code true} if the messages have been processed before the deadline
+   */
+  boolean drain(long deadline) {
+    AemBatchReceiver receiver;
+    AemKeyedDispatcher keyedDispatcher;
+    synchronized (this) {
+      receiver = this.batchReceiver;
+      keyedDispatcher = this.dispatcher;
+    }
+    boolean drained = true;
+    if (receiver != null) {
+      receiver.close();
+      drained = receiver.await(remainingMillis(deadline));
+    }
+    if (keyedDispatcher != null) {
+      drained &= keyedDispatcher.drain(remainingMillis(deadline));
+    }
+    return drained;
+  }
+
+  private static long remainingMillis(long deadline) {
+    return Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1);
+  }
+
+  @Override
+  public synchronized MessageListener getMessageListener() throws JMSException {
+    return listener;
+  }
+
+  @Override
+  public String getMessageSelector() throws JMSException {
+    return delegate.getMessageSelector();
+  }
+
+  @Override
+  public Message receive() throws JMSException {
+    return delegate.receive();
+  }
+
+  @Override
+  public Message receive(long timeout) throws JMSException {
+    return delegate.receive(timeout);
+  }
+
+  @Override
+  public Message receiveNoWait() throws JMSException {
+    return delegate.receiveNoWait();
+  }
+
+  @Override
+  public synchronized void close() throws JMSException {
+    if (batchReceiver != null) {
+      // stops receiving before the consumer is closed
+      batchReceiver.close();
+    }
+    delegate.close();
+    closeListener();
+  }
+
+  private void closeListener() {
+    if (dispatcher != null) {
+      dispatcher.close();
+      dispatcher = null;
+    }
+    if (batchReceiver != null) {
+      batchReceiver.close();
+      batchReceiver = null;
+    }
+    if (redeliveryDelay != null) {
+      redeliveryDelay.close();
+      redeliveryDelay = null;
+    }
+  }
+}
@@ -0,0 +1,455 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.TopicMessageEventContext;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Connection;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemMessagePublisher sends topic messages on its own sessions of the broker connection.
+ *
+ * <p>If {@code maxInFlight} is greater than zero, messages are sent asynchronously: at most {@code
+ * maxInFlight} messages are sent without having been settled by the broker; further publishes block
+ * until the window has space again, at most for the send timeout. Failures of asynchronous sends
+ * are reported to the {@link FailureHandler} with the message that failed, not to later callers,
+ * and complete the settlement returned by {@link #publish(String, TopicMessageEventContext)}.
+ *
+ * <p>The headers of a message are sent as its JMS properties.
+ *
+ * <p>If a {@link AemProducerCache} is given, messages are sent with the cached producer of their
+ * topic, otherwise with an anonymous producer on a single session.
+ *
+ * <p>Batches of messages are sent on a session of their own and settled together, either by
+ * committing a local transaction or by waiting for the broker to settle all messages sent
+ * asynchronously.
+ */
+public class AemMessagePublisher implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemMessagePublisher.class);
+
+  /** The default time to wait for space in the window of in-flight messages. */
+  public static final Duration DEFAULT_SEND_TIMEOUT = Duration.ofSeconds(30);
+
+  private final Connection connection;
+  private final int maxInFlight;
+  private final Semaphore window;
+  private final AemProducerCache producerCache;
+  private final Duration sendTimeout;
+  private final FailureHandler failureHandler;
+
+  private Session session;
+  private MessageProducer anonymousProducer;
+
+  public AemMessagePublisher(
+      Connection connection, int maxInFlight, AemProducerCache producerCache) {
+    this(connection, maxInFlight, producerCache, DEFAULT_SEND_TIMEOUT, null);
+  }
+
+  /**
+   * Creates a publisher on the given connection.
+   *
+   * @param connection the broker connection
+   * @param maxInFlight the maximum number of messages sent asynchronously without having been
+   *     settled, {@code 0} to send synchronously
+   * @param producerCache the cache of producers per topic or {@code null}
+   * @param sendTimeout the maximum time to wait for space in the window of in-flight messages
+   * @param failureHandler the handler of failed asynchronous sends, {@code null} to log them
+   */
+  public AemMessagePublisher(
+      Connection connection,
+      int maxInFlight,
+      AemProducerCache producerCache,
+      Duration sendTimeout,
+      FailureHandler failureHandler) {
+    if (maxInFlight < 0) {
+      throw new IllegalArgumentException("maxInFlight must not be negative");
+    }
+    this.connection = connection;
+    this.maxInFlight = maxInFlight;
+    this.window = maxInFlight > 0 ? new Semaphore(maxInFlight) : null;
+    this.producerCache = producerCache;
+    this.sendTimeout = sendTimeout;
+    this.failureHandler = failureHandler;
+  }
+
+  /**
+   * Sends the message of the given context to the given topic address. In asynchronous mode the
+   * method returns without waiting for the broker to settle the message.
+   *
+   * @param topic the topic address, including the {@code topic://} prefix
+   * @param messageEventContext the context of the message to send
+   * @return the settlement of the message, which fails with a {@link ServiceException} if the
+   *     broker did not accept the message
+   * @throws ServiceException if the message could not be sent or the window had no space within
+   *     the send timeout
+   */
+  public CompletableFuture<Void> publish(
+      String topic, TopicMessageEventContext messageEventContext) {
+    acquireWindow(topic);
+    WindowCompletionListener listener =
+        window != null ? new WindowCompletionListener(topic, messageEventContext) : null;
+
+    try {
+      if (producerCache != null) {
+        producerCache.execute(
+            topic,
+            (session, producer) ->
+                send(producer, null, createMessage(session, messageEventContext), listener));
+      } else {
+        synchronized (this) {
+          Session s = getSession();
+          send(
+              anonymousProducer,
+              s.createTopic(topic),
+              createMessage(s, messageEventContext),
+              listener);
+        }
+      }
+    } catch (JMSException | RuntimeException e) {
+      releaseWindow();
+      throw new ServiceException("Failed to send message to topic '" + topic + "'.", e);
+    }
+    return listener != null ? listener.settlement : CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Sends the messages of the given contexts to the given topic addresses on one session and waits
+   * until the broker has settled all of them.
+   *
+   * @param topics the topic addresses, including the {@code topic://} prefix
+   * @param messageEventContexts the contexts of the messages to send, in the order of the topics
+   * @param transacted whether to send the messages in a local transaction, otherwise they are
+   *     sent asynchronously and the settlements are awaited
+   * @param timeout the maximum time to wait for the settlements
+   * @throws ServiceException if not all messages have been accepted by the broker
+   */
+  public void publishBatch(
+      List<String> topics,
+      List<TopicMessageEventContext> messageEventContexts,
+      boolean transacted,
+      Duration timeout) {
+    if (topics.isEmpty()) {
+      return;
+    }
+
+    Session batchSession = null;
+    try {
+      batchSession =
+          transacted
+              ? connection.createSession(true, Session.SESSION_TRANSACTED)
+              : connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+      Map<String, MessageProducer> producers = new HashMap<>();
+      BatchCompletionListener batchListener =
+          transacted ? null : new BatchCompletionListener(topics.size());
+
+      for (int i = 0; i < topics.size(); i++) {
+        Session s = batchSession;
+        MessageProducer producer =
+            producers.computeIfAbsent(topics.get(i), topic -> createProducer(s, topic));
+        Message message = createMessage(batchSession, messageEventContexts.get(i));
+        if (transacted) {
+          producer.send(message);
+        } else {
+          producer.send(message, batchListener);
+        }
+      }
+
+      if (transacted) {
+        batchSession.commit();
+      } else {
+        batchListener.await(timeout);
+      }
+    } catch (JMSException | RuntimeException e) {
+      rollback(batchSession, transacted);
+      throw new ServiceException("Failed to send a batch of " + topics.size() + " messages.", e);
+    } finally {
+      closeQuietly(batchSession);
+    }
+  }
+
+  /**
+   * Waits until all in-flight messages have been settled by the broker.
+   *
+   * @param timeout the maximum time to wait
+   * @return {@code true} if all messages have been settled, {@code false} if the timeout elapsed
+   */
+  public boolean flush(Duration timeout) {
+    if (window == null) {
+      return true;
+    }
+    boolean flushed;
+    try {
+      flushed = window.tryAcquire(maxInFlight, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      flushed = false;
+    }
+    if (flushed) {
+      window.release(maxInFlight);
+    } else {
+      logger.warn(
+          "{} messages are still in flight after waiting {} ms.", getInFlight(), timeout.toMillis());
+    }
+    return flushed;
+  }
+
+  /**
+   * Returns the number of messages that have been sent but not yet settled by the broker.
+   *
+   * @return the number of in-flight messages
+   */
+  public int getInFlight() {
+    return window != null ? maxInFlight - window.availablePermits() : 0;
+  }
+
+  /**
+   * Returns the producer cache used by this publisher.
+   *
+   * @return the producer cache or {@code null} if producers are not cached
+   */
+  public AemProducerCache getProducerCache() {
+    return producerCache;
+  }
+
+  @Override
+  public synchronized void close() throws JMSException {
+    if (producerCache != null) {
+      logger.debug("Closing producers, statistics: {}", producerCache);
+      producerCache.clear();
+    }
+    if (session != null) {
+      session.close();
+      session = null;
+      anonymousProducer = null;
+    }
+  }
+
+  @VisibleForTesting
+  static Message createMessage(Session session, TopicMessageEventContext messageEventContext)
+      throws JMSException {
+    Message message = session.createTextMessage(messageEventContext.getData());
+    Map<String, Object> headers = messageEventContext.getHeadersMap();
+    if (headers != null) {
+      for (Map.Entry<String, Object> header : headers.entrySet()) {
+        setProperty(message, header.getKey(), header.getValue());
+      }
+    }
+    return message;
+  }
+
+  private static void setProperty(Message message, String name, Object value)
+      throws JMSException {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof String
+        || value instanceof Boolean
+        || value instanceof Byte
+        || value instanceof Short
+        || value instanceof Integer
+        || value instanceof Long
+        || value instanceof Float
+        || value instanceof Double) {
+      message.setObjectProperty(name, value);
+    } else {
+      // JMS properties only hold primitive values and strings
+      message.setStringProperty(name, value.toString());
+    }
+  }
+
+  private Session getSession() throws JMSException {
+    if (session == null) {
+      session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+      // anonymous producer, the destination is given with each send
+      anonymousProducer = session.createProducer(null);
+    }
+    return session;
+  }
+
+  private static void send(
+      MessageProducer producer,
+      Destination destination,
+      Message message,
+      CompletionListener completionListener)
+      throws JMSException {
+    if (completionListener == null) {
+      if (destination != null) {
+        producer.send(destination, message);
+      } else {
+        producer.send(message);
+      }
+    } else if (destination != null) {
+      producer.send(destination, message, completionListener);
+    } else {
+      producer.send(message, completionListener);
+    }
+  }
+
+  private static MessageProducer createProducer(Session session, String topic) {
+    try {
+      return session.createProducer(session.createTopic(topic));
+    } catch (JMSException e) {
+      throw new ServiceException("Failed to create producer for topic '" + topic + "'.", e);
+    }
+  }
+
+  private static void rollback(Session session, boolean transacted) {
+    if (session != null && transacted) {
+      try {
+        session.rollback();
+      } catch (JMSException e) {
+        // ignored
+        logger.debug("An error occurred while rolling back the batch.", e);
+      }
+    }
+  }
+
+  private static void closeQuietly(Session session) {
+    if (session != null) {
+      try {
+        session.close();
+      } catch (JMSException e) {
+        // ignored
+        logger.debug("An error occurred while closing the batch session.", e);
+      }
+    }
+  }
+
+  private void acquireWindow(String topic) {
+    if (window != null) {
+      try {
+        if (!window.tryAcquire(sendTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+          throw new ServiceException(
+              "Failed to send message to topic '"
+                  + topic
+                  + "', "
+                  + maxInFlight
+                  + " messages are still in flight after waiting "
+                  + sendTimeout.toMillis()
+                  + " ms.");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServiceException("Interrupted while waiting for the publish window.", e);
+      }
+    }
+  }
+
+  private void releaseWindow() {
+    if (window != null) {
+      window.release();
+    }
+  }
+
+  /** Handles the messages which the broker did not accept after they were sent asynchronously. */
+  @FunctionalInterface
+  public interface FailureHandler {
+
+    /**
+     * Called with the message that the broker did not accept.
+     *
+     * @param topic the topic address, including the {@code topic://} prefix
+     * @param messageEventContext the context of the message
+     * @param exception the reason of the failure
+     */
+    void onFailure(String topic, TopicMessageEventContext messageEventContext, Exception exception);
+  }
+
+  private static class BatchCompletionListener implements CompletionListener {
+
+    private final CountDownLatch pending;
+    private final AtomicReference<Exception> batchFailure = new AtomicReference<>();
+
+    private BatchCompletionListener(int count) {
+      this.pending = new CountDownLatch(count);
+    }
+
+    @Override
+    public void onCompletion(Message message) {
+      pending.countDown();
+    }
+
+    @Override
+    public void onException(Message message, Exception exception) {
+      batchFailure.compareAndSet(null, exception);
+      pending.countDown();
+    }
+
+    private void await(Duration timeout) throws JMSException {
+      boolean completed;
+      try {
+        completed = pending.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServiceException("Interrupted while waiting for the batch to be settled.", e);
+      }
+      if (!completed) {
+        throw new ServiceException(
+            pending.getCount()
+                + " messages of the batch have not been settled after "
+                + timeout.toMillis()
+                + " ms.");
+      }
+      Exception e = batchFailure.get();
+      if (e instanceof JMSException jmsException) {
+        throw jmsException;
+      } else if (e != null) {
+        throw new ServiceException("The broker did not accept a message of the batch.", e);
+      }
+    }
+  }
+
+  private class WindowCompletionListener implements CompletionListener {
+
+    private final String topic;
+    private final TopicMessageEventContext messageEventContext;
+    private final CompletableFuture<Void> settlement = new CompletableFuture<>();
+
+    private WindowCompletionListener(String topic, TopicMessageEventContext messageEventContext) {
+      this.topic = topic;
+      this.messageEventContext = messageEventContext;
+    }
+
+    @Override
+    public void onCompletion(Message message) {
+      window.release();
+      settlement.complete(null);
+    }
+
+    @Override
+    public void onException(Message message, Exception exception) {
+      window.release();
+      settlement.completeExceptionally(
+          new ServiceException(
+              "The broker did not accept the message published to topic '" + topic + "'.",
+              exception));
+      if (failureHandler == null) {
+        logger.error(
+            "The broker did not accept the message published to topic '{}'.", topic, exception);
+        return;
+      }
+      try {
+        failureHandler.onFailure(topic, messageEventContext, exception);
+      } catch (RuntimeException e) {
+        logger.error("Failed to handle the message rejected for topic '{}'.", topic, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Queue;
+import jakarta.jms.Topic;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.qpid.jms.JmsDestination;
+import org.apache.qpid.jms.message.JmsMessage;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsMessageFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemMessages wraps received messages, so that the plugin can take over their acknowledgement from
+ * the queue listener.
+ */
+public final class AemMessages {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemMessages.class);
+  // the Qpid JMS property selecting the outcome of an individual acknowledgement
+  private static final String ACK_TYPE = "JMS_AMQP_ACK_TYPE";
+  // the modified outcome with delivery failed, the broker increments the delivery count
+  private static final int MODIFIED_FAILED = 4;
+
+  private AemMessages() {}
+
+  /**
+   * Returns the address of the topic a received message has been published to. For messages
+   * received over AMQP, the address is read from the {@code to} field of the message properties
+   * without creating a destination. Other messages fall back to their JMS destination.
+   *
+   * @param message the received message of any type
+   * @return the address of the topic or {@code null}, if the message has no destination
+   */
+  public static String getTopic(Message message) {
+    message = unwrap(message);
+    if (message instanceof JmsMessage jmsMessage
+        && jmsMessage.getFacade() instanceof AmqpJmsMessageFacade facade) {
+      String address = facade.getToAddress();
+      if (address != null) {
+        return address;
+      }
+      JmsDestination destination = facade.getDestination();
+      return destination != null ? destination.getAddress() : null;
+    }
+    if (message == null) {
+      return null;
+    }
+    try {
+      return getAddress(message.getJMSDestination());
+    } catch (JMSException e) {
+      logger.debug("Failed to read the destination of the message.", e);
+      return null;
+    }
+  }
+
+  private static String getAddress(Destination destination) throws JMSException {
+    if (destination instanceof JmsDestination jmsDestination) {
+      return jmsDestination.getAddress();
+    } else if (destination instanceof Topic topic) {
+      return topic.getTopicName();
+    } else if (destination instanceof Queue queue) {
+      return queue.getQueueName();
+    }
+    return null;
+  }
+
+  /**
+   * Hands a message received on a session with individual acknowledgement to the queue listener
+   * and settles it: the message is acknowledged, if the listener has acknowledged it, and delivered
+   * again otherwise.
+   *
+   * @param listener the queue listener
+   * @param message the received message
+   * @return {@code true} if the listener has acknowledged the message
+   * @throws JMSException if the message could not be settled
+   */
+  static boolean process(MessageListener listener, Message message) throws JMSException {
+    AtomicBoolean acknowledged = new AtomicBoolean();
+    try {
+      listener.onMessage(interceptAcknowledge(message, () -> acknowledged.set(true)));
+    } catch (RuntimeException e) {
+      logger.error("The queue listener failed to process the message.", e);
+    }
+    if (acknowledged.get()) {
+      message.acknowledge();
+    } else {
+      redeliver(message);
+    }
+    return acknowledged.get();
+  }
+
+  /**
+   * Settles a message received on a session with individual acknowledgement as failed, so that the
+   * broker delivers it again, while the other messages of the session are not affected.
+   *
+   * @param message the received message
+   * @throws JMSException if the message could not be settled
+   */
+  static void redeliver(Message message) throws JMSException {
+    message.setIntProperty(ACK_TYPE, MODIFIED_FAILED);
+    message.acknowledge();
+  }
+
+  /**
+   * Returns the message received from the broker for a message handed to the queue listener.
+   *
+   * @param message the message handed to the queue listener
+   * @return the message received from the broker
+   */
+  public static Message unwrap(Message message) {
+    while (message != null
+        && Proxy.isProxyClass(message.getClass())
+        && Proxy.getInvocationHandler(message) instanceof AcknowledgeHandler handler) {
+      message = handler.message;
+    }
+    return message;
+  }
+
+  /**
+   * Returns a message, which runs the given action instead of acknowledging the message. The
+   * returned message implements the same JMS interfaces as the given one.
+   *
+   * @param message the received message
+   * @param acknowledge the action run on acknowledgement
+   * @return the wrapped message
+   */
+  static Message interceptAcknowledge(Message message, Runnable acknowledge) {
+    Set<Class<?>> interfaces = new LinkedHashSet<>();
+    for (Class<?> type = message.getClass(); type != null; type = type.getSuperclass()) {
+      for (Class<?> anInterface : type.getInterfaces()) {
+        if (Modifier.isPublic(anInterface.getModifiers())) {
+          interfaces.add(anInterface);
+        }
+      }
+    }
+    return (Message)
+        Proxy.newProxyInstance(
+            message.getClass().getClassLoader(),
+            interfaces.toArray(Class<?>[]::new),
+            new AcknowledgeHandler(message, acknowledge));
+  }
+
+  private static class AcknowledgeHandler implements InvocationHandler {
+
+    private final Message message;
+    private final Runnable acknowledge;
+
+    AcknowledgeHandler(Message message, Runnable acknowledge) {
+      this.message = message;
+      this.acknowledge = acknowledge;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if ("acknowledge".equals(method.getName()) && method.getParameterCount() == 0) {
+        acknowledge.run();
+        return null;
+      }
+      try {
+        return method.invoke(message, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+}
@@ -15,12 +15,17 @@ import com.sap.cloud.sdk.cloudplatform.connectivity.ServiceBindingDestinationOpt
 import jakarta.jms.Connection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.BiFunction;
 import org.apache.http.HttpHeaders;
 import org.apache.qpid.jms.JmsConnectionExtensions;
 import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,9 +35,31 @@ public class AemMessagingConnectionProvider extends BrokerConnectionProvider {
       LoggerFactory.getLogger(AemMessagingConnectionProvider.class);
 
   private static final String SASL_MECHANISM_URI_PARAMETER = "/?amqp.saslMechanisms=XOAUTH2";
+  private static final double TOKEN_REFRESH_RATIO = 0.75;
+  private static final long DEFAULT_RECONNECT_DELAY = 1000;
+  private static final long DEFAULT_RECONNECT_DELAY_MAX = 30000;
+  private static final double DEFAULT_RECONNECT_MULTIPLIER = 2;
+  private static final double DEFAULT_RECONNECT_JITTER = 0.5;
+  private static final long DEFAULT_IDLE_TIMEOUT = 20000;
+  private static final int DEFAULT_MAX_SESSIONS = 256;
+  private static final long DEFAULT_SESSION_TIMEOUT = 10000;
+  private static final List<String> SSL_CONTEXT_OPTIONS =
+      List.of(
+          "transport.keyStore",
+          "transport.keyAlias",
+          "transport.trustStore",
+          "transport.storeType",
+          "transport.trustAll",
+          "transport.contextProtocol");
 
   private final ServiceBinding binding;
   private final Destination destination;
+  private final List<String> amqpUris;
+  private final AemTokenCache tokenCache =
+      new AemTokenCache(this::fetchToken, TOKEN_REFRESH_RATIO);
+  private AemConnectionPool connectionPool;
+  private AemSslContext sslContext;
+  private int openConnections;
 
   public AemMessagingConnectionProvider(ServiceBinding binding) {
     super(binding.getName().get());
@@ -47,6 +74,11 @@ public class AemMessagingConnectionProvider extends BrokerConnectionProvider {
                     new ServiceException(
                         "AMQP URI key is missing in the service binding. Please check the service binding configuration."));
     validateAmqpUri(amqpUri, endpointView.getUri().orElse(null), binding.getName().orElse("<unnamed>"));
+    // further URIs of the endpoint, e.g. of the disaster recovery broker, are used for failover
+    this.amqpUris = endpointView.getAmqpUris();
+    this.amqpUris.stream()
+        .skip(1)
+        .forEach(uri -> validateAmqpUri(uri, null, binding.getName().orElse("<unnamed>")));
     amqpUri = amqpUri + SASL_MECHANISM_URI_PARAMETER;
 
     ServiceBindingDestinationOptions options =
@@ -64,9 +96,16 @@ public class AemMessagingConnectionProvider extends BrokerConnectionProvider {
 
   @VisibleForTesting
   AemMessagingConnectionProvider(ServiceBinding binding, Destination destination) {
+    this(binding, destination, List.of());
+  }
+
+  @VisibleForTesting
+  AemMessagingConnectionProvider(
+      ServiceBinding binding, Destination destination, List<String> amqpUris) {
     super(binding.getName().get());
     this.binding = binding;
     this.destination = destination;
+    this.amqpUris = amqpUris;
   }
 
   @Override
@@ -77,13 +116,76 @@ public class AemMessagingConnectionProvider extends BrokerConnectionProvider {
     logger.debug(
         "Retrieving credentials for Basic Auth from	service binding '{}'", binding.getName().get());
 
+    if (Boolean.parseBoolean(
+        getProperty(clientProperties, "sharedConnection", "shared-connection"))) {
+      logger.debug("Sharing the connections of service binding '{}'", binding.getName().get());
+      return new AemBrokerConnection(
+          name,
+          new AemConnectionFactory(getConnectionPool(clientProperties)),
+          acquireTokenCache());
+    }
+
+    JmsConnectionFactory factory = createJmsConnectionFactory(clientProperties);
+    AemConnectionFactory connectionFactory = new AemConnectionFactory(factory);
+    Duration healthCheckInterval = getHealthCheckInterval(clientProperties);
+    if (!healthCheckInterval.isZero()) {
+      connectionFactory.setHealthCheckInterval(healthCheckInterval);
+    }
+    applyPrefetchPolicy(factory, connectionFactory.getConsumerOptions());
+
+    return new AemBrokerConnection(name, connectionFactory, acquireTokenCache());
+  }
+
+  /**
+   * Registers a broker connection using the token cache and returns the action releasing it. The
+   * background refresh of the token is stopped, once the last broker connection is closed.
+   *
+   * @return the action run when the broker connection is closed
+   */
+  private synchronized Runnable acquireTokenCache() {
+    openConnections++;
+    return this::releaseTokenCache;
+  }
+
+  private synchronized void releaseTokenCache() {
+    if (--openConnections == 0) {
+      tokenCache.close();
+    }
+  }
+
+  /**
+   * Returns the pool of the connections shared by the services of the binding, which is created
+   * with the connection properties of the first service.
+   *
+   * @param clientProperties the connection properties
+   * @return the connection pool
+   */
+  private synchronized AemConnectionPool getConnectionPool(Map<String, String> clientProperties) {
+    if (connectionPool == null) {
+      String maxSessions = getProperty(clientProperties, "maxSessions", "max-sessions");
+      String sessionTimeout = getProperty(clientProperties, "sessionTimeout", "session-timeout");
+      long sessionTimeoutMillis =
+          sessionTimeout != null ? Long.parseLong(sessionTimeout) : DEFAULT_SESSION_TIMEOUT;
+      JmsConnectionFactory factory = createJmsConnectionFactory(clientProperties);
+      connectionPool =
+          new AemConnectionPool(
+              factory,
+              maxSessions != null ? Integer.parseInt(maxSessions) : DEFAULT_MAX_SESSIONS,
+              Duration.ofMillis(sessionTimeoutMillis),
+              getHealthCheckInterval(clientProperties));
+      applyPrefetchPolicy(factory, connectionPool.getConsumerOptions());
+    }
+    return connectionPool;
+  }
+
+  @VisibleForTesting
+  JmsConnectionFactory createJmsConnectionFactory(Map<String, String> clientProperties) {
     final BiFunction<Connection, URI, Object> tokenExtension =
         new BiFunction<>() {
           @Override
           public Object apply(final Connection connection, final URI uri) {
-            String token = fetchToken().orElseThrow(() -> new ServiceException("Token is missing"));
-
-            return token;
+            // served from memory, so that reconnects do not fetch a new token
+            return tokenCache.getToken();
           }
         };
 
@@ -94,11 +196,225 @@ public class AemMessagingConnectionProvider extends BrokerConnectionProvider {
         new JmsConnectionFactory(
             destination.get("vpn", String.class).get(),
             "token",
-            destination.get(DestinationProperty.URI).get());
+            amqpUris.isEmpty()
+                ? destination.get(DestinationProperty.URI).get()
+                : getConnectionUri(
+                    amqpUris, clientProperties, ThreadLocalRandom.current().nextDouble()));
 
     factory.setExtension(JmsConnectionExtensions.PASSWORD_OVERRIDE.toString(), tokenExtension);
+    applyTimeouts(factory, clientProperties);
+    if (usesSharedSslContext(clientProperties)) {
+      // reconnects resume the TLS sessions cached by the context instead of full handshakes
+      factory.setSslContext(getOrCreateSslContext());
+    }
+    AemTransportProfile profile =
+        AemTransportProfile.of(
+            getProperty(clientProperties, "transportProfile", "transport-profile"));
+    if (AemTransportProfile.isNativeTransportAvailable()) {
+      logger.debug("Using the native epoll transport with the transport profile '{}'.", profile);
+    } else if (profile != AemTransportProfile.DEFAULT) {
+      logger.warn(
+          "The native epoll transport is not available, the transport profile '{}' uses the NIO"
+              + " transport.",
+          profile);
+    }
+    return factory;
+  }
 
-    return new BrokerConnection(name, factory);
+  private synchronized AemSslContext getOrCreateSslContext() {
+    if (sslContext == null) {
+      sslContext = AemSslContext.create();
+    }
+    return sslContext;
+  }
+
+  /**
+   * Returns the SSL context shared by the AMQP connections of the binding, which measures the
+   * duration of the TLS handshakes.
+   *
+   * @return the SSL context, empty if no connection uses it yet
+   */
+  public synchronized Optional<AemSslContext> getSslContext() {
+    return Optional.ofNullable(sslContext);
+  }
+
+  /**
+   * Returns whether the connections use the SSL context shared by the binding. Qpid ignores the
+   * key and trust store options of the transport with a given SSL context, so connections with
+   * these options create their own SSL context.
+   *
+   * @param properties the connection properties
+   * @return {@code true} if the shared SSL context is used
+   */
+  @VisibleForTesting
+  static boolean usesSharedSslContext(Map<String, String> properties) {
+    String resumption =
+        getProperty(properties, "tlsSessionResumption", "tls-session-resumption");
+    if (resumption != null && !Boolean.parseBoolean(resumption)) {
+      return false;
+    }
+    return getTransportOptions(properties).stream()
+        .noneMatch(option -> SSL_CONTEXT_OPTIONS.stream().anyMatch(option::startsWith));
+  }
+
+  private static Duration getHealthCheckInterval(Map<String, String> clientProperties) {
+    String healthCheckInterval =
+        getProperty(clientProperties, "healthCheckInterval", "health-check-interval");
+    return healthCheckInterval != null
+        ? Duration.ofMillis(Long.parseLong(healthCheckInterval))
+        : Duration.ZERO;
+  }
+
+  private static void applyPrefetchPolicy(
+      JmsConnectionFactory factory, Map<String, AemConsumerOptions> consumerOptions) {
+    if (factory.getPrefetchPolicy() instanceof JmsDefaultPrefetchPolicy prefetchPolicy) {
+      // applies the prefetch of the consumer options registered for the queues
+      factory.setPrefetchPolicy(new AemPrefetchPolicy(prefetchPolicy, consumerOptions));
+    }
+  }
+
+  /**
+   * Returns the URI of the connection to the given AMQP endpoints with Qpid's failover transport,
+   * which restores the sessions, consumers and producers of the connection after a reconnect. The
+   * delays between the reconnect attempts grow exponentially. They are scaled by a random factor
+   * per connection, so that the instances of an application do not reconnect at the same time.
+   * The AMQP idle timeout makes both peers send heartbeats, so that a connection that no longer
+   * answers is dropped and replaced within the timeout.
+   *
+   * @param amqpUris the AMQP URIs of the binding, the primary one first
+   * @param properties the connection properties
+   * @param random a random value between 0 and 1 to scale the reconnect delays with
+   * @return the connection URI
+   */
+  @VisibleForTesting
+  static String getConnectionUri(
+      List<String> amqpUris, Map<String, String> properties, double random) {
+    List<String> uris = new ArrayList<>(amqpUris);
+    String failoverUris = getProperty(properties, "failoverUris", "failover-uris");
+    if (failoverUris != null) {
+      for (String uri : failoverUris.split(",")) {
+        if (!uri.isBlank()) {
+          validateAmqpUri(uri.trim(), null, "failoverUris");
+          uris.add(uri.trim());
+        }
+      }
+    }
+
+    String delayProperty = getProperty(properties, "reconnectDelay", "reconnect-delay");
+    String delayMaxProperty = getProperty(properties, "reconnectDelayMax", "reconnect-delay-max");
+    String multiplierProperty =
+        getProperty(properties, "reconnectMultiplier", "reconnect-multiplier");
+    String jitterProperty = getProperty(properties, "reconnectJitter", "reconnect-jitter");
+    String attemptsProperty =
+        getProperty(properties, "maxReconnectAttempts", "max-reconnect-attempts");
+    long delay = delayProperty != null ? Long.parseLong(delayProperty) : DEFAULT_RECONNECT_DELAY;
+    long delayMax =
+        delayMaxProperty != null ? Long.parseLong(delayMaxProperty) : DEFAULT_RECONNECT_DELAY_MAX;
+    double multiplier =
+        multiplierProperty != null
+            ? Double.parseDouble(multiplierProperty)
+            : DEFAULT_RECONNECT_MULTIPLIER;
+    double jitter =
+        jitterProperty != null ? Double.parseDouble(jitterProperty) : DEFAULT_RECONNECT_JITTER;
+    int attempts = attemptsProperty != null ? Integer.parseInt(attemptsProperty) : -1;
+    String idleTimeoutProperty = getProperty(properties, "idleTimeout", "idle-timeout");
+    long idleTimeout =
+        idleTimeoutProperty != null ? Long.parseLong(idleTimeoutProperty) : DEFAULT_IDLE_TIMEOUT;
+    StringBuilder nestedOptions = new StringBuilder();
+    for (String option : getTransportOptions(properties)) {
+      nestedOptions.append("&failover.nested.").append(option);
+    }
+
+    // the factor is within [1 - jitter, 1 + jitter]
+    double factor = 1 + Math.min(Math.max(jitter, 0), 1) * (2 * random - 1);
+    long jitteredDelay = Math.round(delay * factor);
+    return "failover:("
+        + String.join(",", uris)
+        + ")?failover.nested.amqp.saslMechanisms=XOAUTH2"
+        + "&failover.nested.amqp.idleTimeout="
+        + idleTimeout
+        + nestedOptions
+        + "&failover.initialReconnectDelay="
+        + jitteredDelay
+        + "&failover.reconnectDelay="
+        + jitteredDelay
+        + "&failover.maxReconnectDelay="
+        + Math.max(Math.round(delayMax * factor), jitteredDelay)
+        + "&failover.useReconnectBackOff=true"
+        + "&failover.reconnectBackOffMultiplier="
+        + Math.max(multiplier, 1)
+        + "&failover.maxReconnectAttempts="
+        + attempts
+        + "&failover.randomize=false";
+  }
+
+  /**
+   * Returns the transport and AMQP options of the transport profile given in the connection
+   * properties, followed by the options given explicitly, which take precedence.
+   *
+   * @param properties the connection properties
+   * @return the options in the form {@code key=value}
+   * @throws ServiceException if the profile is unknown or an option is neither a transport nor an
+   *     AMQP option
+   */
+  @VisibleForTesting
+  static List<String> getTransportOptions(Map<String, String> properties) {
+    AemTransportProfile profile =
+        AemTransportProfile.of(getProperty(properties, "transportProfile", "transport-profile"));
+    List<String> options = new ArrayList<>(profile.getOptions());
+    String transportOptions = getProperty(properties, "transportOptions", "transport-options");
+    if (transportOptions != null) {
+      for (String option : transportOptions.split("&")) {
+        String trimmed = option.trim();
+        if (trimmed.isEmpty()) {
+          continue;
+        }
+        if (!(trimmed.startsWith("transport.") || trimmed.startsWith("amqp."))
+            || trimmed.indexOf('=') < 0) {
+          throw new ServiceException(
+              "Invalid transport option '"
+                  + trimmed
+                  + "', expected 'transport.<name>=<value>' or 'amqp.<name>=<value>'.");
+        }
+        options.add(trimmed);
+      }
+    }
+    return options;
+  }
+
+  /**
+   * Applies the timeouts configured in the given connection properties to the connection factory,
+   * the timeouts of Qpid apply otherwise. Sends time out after {@link
+   * AemMessagePublisher#DEFAULT_SEND_TIMEOUT} by default, so that they fail within a known time
+   * while the connection is interrupted.
+   *
+   * @param factory the connection factory
+   * @param properties the connection properties
+   */
+  @VisibleForTesting
+  static void applyTimeouts(JmsConnectionFactory factory, Map<String, String> properties) {
+    String connectTimeout = getProperty(properties, "connectTimeout", "connect-timeout");
+    if (connectTimeout != null) {
+      factory.setConnectTimeout(Long.parseLong(connectTimeout));
+    }
+    // without a send timeout, a send blocks while the failover transport reconnects
+    String sendTimeout = getProperty(properties, "sendTimeout", "send-timeout");
+    factory.setSendTimeout(
+        sendTimeout != null
+            ? Long.parseLong(sendTimeout)
+            : AemMessagePublisher.DEFAULT_SEND_TIMEOUT.toMillis());
+    String requestTimeout = getProperty(properties, "requestTimeout", "request-timeout");
+    if (requestTimeout != null) {
+      factory.setRequestTimeout(Long.parseLong(requestTimeout));
+    }
+  }
+
+  private static String getProperty(Map<String, String> properties, String name, String alias) {
+    if (properties == null) {
+      return null;
+    }
+    String value = properties.get(name);
+    return value != null ? value : properties.get(alias);
   }
 
   @VisibleForTesting
@@ -113,13 +429,24 @@ public class AemMessagingConnectionProvider extends BrokerConnectionProvider {
 
   @VisibleForTesting
   String getToken(String value) {
-    String token = null;
-    if (value != null) {
-      String[] parts = value.split(" ");
-      token = parts.length > 1 ? parts[1] : null;
+    if (value == null) {
+      return null;
     }
+    int space = value.indexOf(' ');
+    int end = value.indexOf(' ', space + 1);
+    return space >= 0 && space + 1 < value.length()
+        ? value.substring(space + 1, end >= 0 ? end : value.length())
+        : null;
+  }
 
-    return token;
+  /**
+   * Returns the cache of the OAuth token used by the AMQP connections of the binding, which counts
+   * the refreshes of the token.
+   *
+   * @return the token cache
+   */
+  public AemTokenCache getTokenCache() {
+    return tokenCache;
   }
 
   static void validateAmqpUri(String amqpUri, String managementUri, String bindingName) {
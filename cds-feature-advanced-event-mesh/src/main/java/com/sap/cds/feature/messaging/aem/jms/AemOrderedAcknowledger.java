@@ -0,0 +1,67 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AemOrderedAcknowledger settles messages processed in parallel in the order in which they have
+ * been received. A message is only settled once all messages received before it have been
+ * processed. Messages acknowledged by the queue listener are acknowledged, the others are delivered
+ * again by the broker, see {@link AemMessages#redeliver(Message)}. The messages need to be received
+ * on a session with individual acknowledgement.
+ */
+class AemOrderedAcknowledger {
+
+  private final Map<Long, Completion> completions = new HashMap<>();
+  private long next;
+
+  /**
+   * Marks the message with the given sequence number as processed.
+   *
+   * @param sequence the sequence number of the message, starting with {@code 0}
+   * @param message the received message
+   * @param acknowledge whether the queue listener has acknowledged the message
+   * @throws JMSException if the messages could not be settled
+   */
+  synchronized void complete(long sequence, Message message, boolean acknowledge)
+      throws JMSException {
+    completions.put(sequence, new Completion(message, acknowledge));
+
+    List<Completion> settled = new ArrayList<>();
+    Completion completion;
+    while ((completion = completions.remove(next)) != null) {
+      next++;
+      settled.add(completion);
+    }
+    JMSException failure = null;
+    for (Completion processed : settled) {
+      try {
+        if (processed.acknowledge) {
+          processed.message.acknowledge();
+        } else {
+          AemMessages.redeliver(processed.message);
+        }
+      } catch (JMSException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Returns the number of processed messages waiting for messages received before them.
+   *
+   * @return the number of waiting messages
+   */
+  synchronized int getPending() {
+    return completions.size();
+  }
+
+  private record Completion(Message message, boolean acknowledge) {}
+}
@@ -0,0 +1,88 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+/**
+ * AemPayloadBudget limits the bytes of the payloads of the messages of a queue, which have been
+ * taken from the prefetch buffers of its consumers but not processed yet. While the budget is
+ * exhausted, the consumers do not take further messages, so that the broker stops sending more
+ * messages once the prefetch buffers are full. A message larger than the budget is processed once
+ * no other message is in flight.
+ */
+class AemPayloadBudget {
+
+  private final long maxBytes;
+  private long inFlight;
+
+  AemPayloadBudget(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the size of the payload of a message, which is counted against the budget. Only the
+   * payload of bytes messages is counted.
+   *
+   * @param message the received message
+   * @return the size of the payload in bytes
+   */
+  static long getPayloadSize(Message message) {
+    if (message instanceof BytesMessage bytesMessage) {
+      try {
+        return bytesMessage.getBodyLength();
+      } catch (JMSException e) {
+        return 0;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Waits until the budget has room for the given payload.
+   *
+   * @param bytes the size of the payload
+   */
+  synchronized void acquire(long bytes) {
+    boolean interrupted = false;
+    while (inFlight > 0 && inFlight + bytes > maxBytes) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    inFlight += bytes;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Releases a processed payload from the budget.
+   *
+   * @param bytes the size of the payload
+   */
+  synchronized void release(long bytes) {
+    inFlight -= bytes;
+    notifyAll();
+  }
+
+  /**
+   * Returns the maximum number of bytes in flight.
+   *
+   * @return the maximum number of bytes
+   */
+  long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the bytes of the payloads taken but not processed yet.
+   *
+   * @return the bytes in flight
+   */
+  synchronized long getInFlight() {
+    return inFlight;
+  }
+}
@@ -0,0 +1,239 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionConsumer;
+import jakarta.jms.ConnectionMetaData;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.ServerSessionPool;
+import jakarta.jms.Session;
+import jakarta.jms.Topic;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemPooledConnection is the handle of a broker connection on a physical connection of an {@link
+ * AemConnectionPool}. Starting, stopping and closing the handle only affects the physical
+ * connection if no other handle uses it. Sessions are not pooled: each session created on the
+ * handle takes a permit of the session limit of the pool, which is given back when it is closed.
+ *
+ * <p>The handle keeps track of its sessions and closes them, with their producers and consumers,
+ * when it is closed. As the physical connection may still deliver messages to other handles, the
+ * consumers of the handle only receive messages while the handle is started, see {@link
+ * AemDeliveryGate}.
+ */
+class AemPooledConnection implements Connection {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemPooledConnection.class);
+
+  private final AemConnectionPool pool;
+  private final AemConnectionPool.Shared shared;
+  private final Connection connection;
+  private final Set<AemSession> sessions = ConcurrentHashMap.newKeySet();
+  private final AemDeliveryGate gate = new AemDeliveryGate();
+
+  private boolean started;
+  private volatile boolean closed;
+  private volatile ExceptionListener exceptionListener;
+
+  AemPooledConnection(AemConnectionPool pool, AemConnectionPool.Shared shared) {
+    this.pool = pool;
+    this.shared = shared;
+    this.connection = shared.getConnection();
+  }
+
+  private Session limited(Session session) {
+    return track(new AemSession(session, this, Map.of(), pool::releaseSessionPermit, gate));
+  }
+
+  private AemSession track(AemSession session) {
+    sessions.removeIf(AemSession::isClosed);
+    sessions.add(session);
+    return session;
+  }
+
+  private void checkOpen() throws JMSException {
+    if (closed) {
+      throw new IllegalStateException("The connection has been closed.");
+    }
+  }
+
+  /**
+   * Creates a session that does not take a permit of the session limit. It is used for the
+   * consumer sessions of an {@link AemSession}, which stand in for the session that holds the
+   * permit.
+   *
+   * @param sessionMode the session mode
+   * @return the session
+   * @throws JMSException if the session could not be created
+   */
+  Session createUnlimitedSession(int sessionMode) throws JMSException {
+    checkOpen();
+    return track(new AemSession(connection.createSession(sessionMode), this, Map.of(), null, gate));
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
+    checkOpen();
+    pool.acquireSessionPermit();
+    try {
+      return limited(connection.createSession(transacted, acknowledgeMode));
+    } catch (JMSException | RuntimeException e) {
+      pool.releaseSessionPermit();
+      throw e;
+    }
+  }
+
+  @Override
+  public Session createSession(int sessionMode) throws JMSException {
+    checkOpen();
+    pool.acquireSessionPermit();
+    try {
+      return limited(connection.createSession(sessionMode));
+    } catch (JMSException | RuntimeException e) {
+      pool.releaseSessionPermit();
+      throw e;
+    }
+  }
+
+  @Override
+  public Session createSession() throws JMSException {
+    checkOpen();
+    pool.acquireSessionPermit();
+    try {
+      return limited(connection.createSession());
+    } catch (JMSException | RuntimeException e) {
+      pool.releaseSessionPermit();
+      throw e;
+    }
+  }
+
+  @Override
+  public String getClientID() throws JMSException {
+    return connection.getClientID();
+  }
+
+  @Override
+  public void setClientID(String clientID) throws JMSException {
+    if (shared.isShared()) {
+      logger.debug("Ignoring the client ID '{}' of a handle on a shared connection.", clientID);
+      return;
+    }
+    connection.setClientID(clientID);
+  }
+
+  @Override
+  public ConnectionMetaData getMetaData() throws JMSException {
+    return connection.getMetaData();
+  }
+
+  @Override
+  public ExceptionListener getExceptionListener() {
+    return exceptionListener;
+  }
+
+  @Override
+  public void setExceptionListener(ExceptionListener listener) {
+    // the exceptions of the physical connection are passed on to the listeners of all handles
+    this.exceptionListener = listener;
+  }
+
+  @Override
+  public synchronized void start() throws JMSException {
+    if (!started && !closed) {
+      started = true;
+      shared.start();
+      gate.open();
+    }
+  }
+
+  @Override
+  public synchronized void stop() throws JMSException {
+    if (started) {
+      started = false;
+      // the physical connection keeps delivering messages, if other handles are started
+      gate.pause();
+      shared.stop();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws JMSException {
+    if (closed) {
+      return;
+    }
+    stop();
+    closed = true;
+    gate.close();
+    JMSException failure = null;
+    for (AemSession session : sessions) {
+      try {
+        // gives back the permits of the sessions
+        session.close();
+      } catch (JMSException e) {
+        failure = e;
+      }
+    }
+    sessions.clear();
+    pool.release(shared, this);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public ConnectionConsumer createConnectionConsumer(
+      Destination destination,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connection.createConnectionConsumer(
+        destination, messageSelector, sessionPool, maxMessages);
+  }
+
+  @Override
+  public ConnectionConsumer createSharedConnectionConsumer(
+      Topic topic,
+      String subscriptionName,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connection.createSharedConnectionConsumer(
+        topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+  }
+
+  @Override
+  public ConnectionConsumer createDurableConnectionConsumer(
+      Topic topic,
+      String subscriptionName,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connection.createDurableConnectionConsumer(
+        topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+  }
+
+  @Override
+  public ConnectionConsumer createSharedDurableConnectionConsumer(
+      Topic topic,
+      String subscriptionName,
+      String messageSelector,
+      ServerSessionPool sessionPool,
+      int maxMessages)
+      throws JMSException {
+    return connection.createSharedDurableConnectionConsumer(
+        topic, subscriptionName, messageSelector, sessionPool, maxMessages);
+  }
+}
@@ -0,0 +1,40 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import java.util.Map;
+import org.apache.qpid.jms.JmsDestination;
+import org.apache.qpid.jms.JmsSession;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
+
+/**
+ * AemPrefetchPolicy applies the prefetch of the {@link AemConsumerOptions} registered for a queue
+ * to its consumers. All other consumers use the prefetch configured for the connection factory.
+ */
+class AemPrefetchPolicy extends JmsDefaultPrefetchPolicy {
+
+  private final Map<String, AemConsumerOptions> consumerOptions;
+
+  AemPrefetchPolicy(
+      JmsDefaultPrefetchPolicy source, Map<String, AemConsumerOptions> consumerOptions) {
+    super(source);
+    this.consumerOptions = consumerOptions;
+  }
+
+  @Override
+  public int getConfiguredPrefetch(
+      JmsSession session, JmsDestination destination, boolean durable, boolean browser) {
+    if (destination != null && destination.isQueue() && !browser) {
+      AemConsumerOptions options =
+          consumerOptions.get(AemSession.getQueueName(destination.getAddress()));
+      if (options != null && options.getPrefetch() >= 0) {
+        return options.getPrefetch();
+      }
+    }
+    return super.getConfiguredPrefetch(session, destination, durable, browser);
+  }
+
+  @Override
+  public AemPrefetchPolicy copy() {
+    // the copy of each connection shares the consumer options registered later on
+    return new AemPrefetchPolicy(this, consumerOptions);
+  }
+}
@@ -0,0 +1,241 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemProducerCache keeps a session with a {@link MessageProducer} per topic address, so that
+ * publishing to a hot topic does not attach and detach an AMQP link for every message. Messages to
+ * different topics are sent concurrently, messages to the same topic are sent one after the other.
+ * The producer of a new topic is opened without blocking the cached producers of other topics.
+ *
+ * <p>The least recently used producer is closed when the cache exceeds its maximum size, and
+ * producers that have not been used for the idle timeout are closed on the next access of the
+ * cache. An idle timeout of zero disables the idle eviction.
+ */
+public class AemProducerCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemProducerCache.class);
+
+  private final Connection connection;
+  private final int maxSize;
+  private final long idleTimeoutNanos;
+  private final LongSupplier nanoClock;
+  // guarded by itself, access order: the eldest entries are the least recently used ones
+  private final LinkedHashMap<String, CachedProducer> producers =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public AemProducerCache(Connection connection, int maxSize, Duration idleTimeout) {
+    this(connection, maxSize, idleTimeout, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  AemProducerCache(Connection connection, int maxSize, Duration idleTimeout, LongSupplier nanoClock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be greater than 0");
+    }
+    this.connection = connection;
+    this.maxSize = maxSize;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Runs the given action with the cached session and producer of the given topic address. The
+   * action has exclusive access to the session while it runs. If the action fails, the session is
+   * closed and removed from the cache.
+   *
+   * @param topic the topic address
+   * @param action the action to run
+   * @throws JMSException if the producer could not be created or the action failed
+   */
+  void execute(String topic, ProducerAction action) throws JMSException {
+    while (true) {
+      CachedProducer cached = acquire(topic);
+      synchronized (cached) {
+        if (cached.closed) {
+          // evicted concurrently, retry with a new producer
+          continue;
+        }
+        try {
+          action.run(cached.session, cached.producer);
+          return;
+        } catch (JMSException | RuntimeException e) {
+          invalidate(topic, cached);
+          throw e;
+        }
+      }
+    }
+  }
+
+  /** Closes all cached producers and their sessions. */
+  void clear() {
+    List<CachedProducer> closing;
+    synchronized (producers) {
+      closing = new ArrayList<>(producers.values());
+      producers.clear();
+    }
+    closing.forEach(this::close);
+  }
+
+  public int size() {
+    synchronized (producers) {
+      return producers.size();
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  private CachedProducer acquire(String topic) throws JMSException {
+    List<CachedProducer> evicted = new ArrayList<>();
+    CachedProducer created = null;
+    try {
+      synchronized (producers) {
+        long now = nanoClock.getAsLong();
+        evictIdle(now, evicted);
+
+        CachedProducer cached = producers.get(topic);
+        if (cached != null) {
+          hits.increment();
+          cached.lastUsed = now;
+          return cached;
+        }
+      }
+
+      misses.increment();
+      // opened without holding the lock, so that the producers of other topics are not blocked
+      created = open(topic);
+      synchronized (producers) {
+        CachedProducer cached = producers.putIfAbsent(topic, created);
+        if (cached != null) {
+          // opened concurrently for the same topic, the new producer is closed again
+          cached.lastUsed = created.lastUsed;
+          return cached;
+        }
+        if (producers.size() > maxSize) {
+          Iterator<CachedProducer> eldest = producers.values().iterator();
+          evicted.add(eldest.next());
+          eldest.remove();
+        }
+        cached = created;
+        created = null;
+        return cached;
+      }
+    } finally {
+      if (created != null) {
+        close(created);
+      }
+      evicted.forEach(this::evict);
+    }
+  }
+
+  private CachedProducer open(String topic) throws JMSException {
+    Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    try {
+      MessageProducer producer = session.createProducer(session.createTopic(topic));
+      return new CachedProducer(session, producer, nanoClock.getAsLong());
+    } catch (JMSException | RuntimeException e) {
+      session.close();
+      throw e;
+    }
+  }
+
+  private void evictIdle(long now, List<CachedProducer> evicted) {
+    if (idleTimeoutNanos <= 0) {
+      return;
+    }
+    Iterator<CachedProducer> it = producers.values().iterator();
+    while (it.hasNext()) {
+      CachedProducer cached = it.next();
+      if (now - cached.lastUsed < idleTimeoutNanos) {
+        break;
+      }
+      evicted.add(cached);
+      it.remove();
+    }
+  }
+
+  private void invalidate(String topic, CachedProducer cached) {
+    synchronized (producers) {
+      producers.remove(topic, cached);
+    }
+    close(cached);
+  }
+
+  private void evict(CachedProducer cached) {
+    evictions.increment();
+    close(cached);
+  }
+
+  private void close(CachedProducer cached) {
+    synchronized (cached) {
+      if (cached.closed) {
+        return;
+      }
+      cached.closed = true;
+      try {
+        cached.session.close();
+      } catch (JMSException e) {
+        // ignored
+        logger.debug("An error occurred while closing a cached producer.", e);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AemProducerCache[size="
+        + size()
+        + ", hits="
+        + getHits()
+        + ", misses="
+        + getMisses()
+        + ", evictions="
+        + getEvictions()
+        + "]";
+  }
+
+  @FunctionalInterface
+  interface ProducerAction {
+    void run(Session session, MessageProducer producer) throws JMSException;
+  }
+
+  private static class CachedProducer {
+    private final Session session;
+    private final MessageProducer producer;
+    private long lastUsed;
+    private boolean closed;
+
+    private CachedProducer(Session session, MessageProducer producer, long lastUsed) {
+      this.session = session;
+      this.producer = producer;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemRedeliveryDelay delays redelivered messages before handing them to the queue listener, so
+ * that a message failing repeatedly does not occupy the consumer. The delay grows exponentially
+ * with the delivery count of the message up to a maximum. A delayed message is handed to the
+ * listener on a scheduler thread, the delivery thread continues with the next message meanwhile.
+ * The messages therefore need to be received on a session with individual acknowledgement and the
+ * listener needs to settle them on its own. Delayed messages, which are still waiting when the
+ * consumer is closed, are released with its session.
+ */
+class AemRedeliveryDelay implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemRedeliveryDelay.class);
+  private static final String DELIVERY_COUNT = "JMSXDeliveryCount";
+
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final double multiplier;
+  private final ScheduledExecutorService scheduler;
+
+  AemRedeliveryDelay(Duration initialDelay, Duration maxDelay, double multiplier) {
+    this.initialDelayMillis = initialDelay.toMillis();
+    this.maxDelayMillis = Math.max(maxDelay.toMillis(), this.initialDelayMillis);
+    this.multiplier = Math.max(multiplier, 1);
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "aem-redelivery-delay");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Returns a listener, which hands first deliveries to the given listener right away and
+   * redelivered messages after their delay.
+   *
+   * @param listener the listener settling the messages
+   * @return the delaying listener
+   */
+  MessageListener delaying(MessageListener listener) {
+    return message -> {
+      if (!defer(message, listener)) {
+        listener.onMessage(message);
+      }
+    };
+  }
+
+  /**
+   * Hands a redelivered message to the given listener after its delay, without waiting for it.
+   *
+   * @param message the received message
+   * @param listener the listener settling the message
+   * @return {@code true} if the message is delayed, {@code false} if it is not delayed and still
+   *     needs to be handed to the listener
+   */
+  boolean defer(Message message, MessageListener listener) {
+    long delay = getDelay(getDeliveryCount(message));
+    if (delay <= 0) {
+      return false;
+    }
+    logger.debug("Delaying the redelivered message by {} ms.", delay);
+    try {
+      scheduler.schedule(() -> listener.onMessage(message), delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      logger.debug("The consumer is closed, the delayed message is released with its session.");
+    }
+    return true;
+  }
+
+  /**
+   * Returns the delay of a message with the given delivery count.
+   *
+   * @param deliveryCount the number of deliveries including the current one
+   * @return the delay in milliseconds
+   */
+  long getDelay(int deliveryCount) {
+    if (deliveryCount <= 1) {
+      return 0;
+    }
+    double delay = initialDelayMillis * Math.pow(multiplier, deliveryCount - 2.0);
+    return (long) Math.min(delay, maxDelayMillis);
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private static int getDeliveryCount(Message message) {
+    try {
+      if (message.propertyExists(DELIVERY_COUNT)) {
+        return message.getIntProperty(DELIVERY_COUNT);
+      }
+      return message.getJMSRedelivered() ? 2 : 1;
+    } catch (JMSException e) {
+      logger.debug("Failed to read the delivery count of the message.", e);
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,369 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Connection;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueBrowser;
+import jakarta.jms.Session;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TemporaryTopic;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicSubscriber;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * AemSession is the JMS session handed to the {@link
+ * com.sap.cds.services.messaging.jms.BrokerConnection}, once {@link AemConsumerOptions} have been
+ * registered. Consumers of queues with options are returned as {@link AemMessageConsumer}. If their
+ * messages are processed in parallel, the consumer is created on a separate session of the same
+ * connection with individual acknowledgement, so that each message is acknowledged on its own. The
+ * same applies, if their messages are received in batches or their redeliveries are delayed, so
+ * that a failed or delayed message is settled on its own. The selector of the options is passed to
+ * the consumer, so that the broker only delivers the matching messages.
+ */
+class AemSession implements Session {
+
+  /** The Qpid JMS acknowledge mode, in which a message is acknowledged on its own. */
+  static final int INDIVIDUAL_ACKNOWLEDGE = 101;
+
+  private static final String QUEUE_PREFIX = "queue://";
+
+  private final Session delegate;
+  private final Connection connection;
+  private final Map<String, AemConsumerOptions> consumerOptions;
+  private final List<Session> consumerSessions = new CopyOnWriteArrayList<>();
+  private final List<AemMessageConsumer> consumers = new CopyOnWriteArrayList<>();
+  private final Runnable onClose;
+  private final AemDeliveryGate gate;
+  private volatile boolean closed;
+
+  AemSession(
+      Session delegate, Connection connection, Map<String, AemConsumerOptions> consumerOptions) {
+    this(delegate, connection, consumerOptions, null);
+  }
+
+  AemSession(
+      Session delegate,
+      Connection connection,
+      Map<String, AemConsumerOptions> consumerOptions,
+      Runnable onClose) {
+    this(delegate, connection, consumerOptions, onClose, null);
+  }
+
+  AemSession(
+      Session delegate,
+      Connection connection,
+      Map<String, AemConsumerOptions> consumerOptions,
+      Runnable onClose,
+      AemDeliveryGate gate) {
+    this.delegate = delegate;
+    this.connection = connection;
+    this.consumerOptions = consumerOptions;
+    this.onClose = onClose;
+    this.gate = gate;
+  }
+
+  /**
+   * Returns the name of a queue without the {@code queue://} prefix.
+   *
+   * @param name the name of the queue or {@code null}
+   * @return the name without prefix or {@code null}
+   */
+  static String getQueueName(String name) {
+    if (name != null && name.startsWith(QUEUE_PREFIX)) {
+      return name.substring(QUEUE_PREFIX.length());
+    }
+    return name;
+  }
+
+  private AemConsumerOptions getConsumerOptions(Destination destination) throws JMSException {
+    if (destination instanceof Queue queue) {
+      String name = getQueueName(queue.getQueueName());
+      return name != null ? consumerOptions.get(name) : null;
+    }
+    return null;
+  }
+
+  private MessageConsumer createConsumer(
+      Destination destination, AemConsumerOptions options, String messageSelector, boolean noLocal)
+      throws JMSException {
+    Session session = delegate;
+    if (options.isBatching() || options.isDispatching() || options.isDelayingRedeliveries()) {
+      session = createConsumerSession();
+      consumerSessions.add(session);
+    }
+    String selector = getSelector(messageSelector, options.getSelector());
+    AemMessageConsumer consumer =
+        new AemMessageConsumer(
+            gated(session.createConsumer(destination, selector, noLocal)), options);
+    consumers.add(consumer);
+    return consumer;
+  }
+
+  private MessageConsumer gated(MessageConsumer consumer) {
+    return gate != null ? gate.gated(consumer) : consumer;
+  }
+
+  private Session createConsumerSession() throws JMSException {
+    // the consumer session stands in for this session, so it does not count against the limit
+    if (connection instanceof AemPooledConnection pooled) {
+      return pooled.createUnlimitedSession(INDIVIDUAL_ACKNOWLEDGE);
+    }
+    return connection.createSession(false, INDIVIDUAL_ACKNOWLEDGE);
+  }
+
+  /**
+   * Waits for the consumers of the session to finish the messages they have already taken.
+   *
+   * @param deadline the deadline in terms of {@link System#nanoTime()}
+   * @return {@code true} if all consumers have finished before the deadline
+   */
+  boolean drain(long deadline) {
+    boolean drained = true;
+    for (AemMessageConsumer consumer : consumers) {
+      drained &= consumer.drain(deadline);
+    }
+    return drained;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  private static String getSelector(String messageSelector, String optionsSelector) {
+    if (optionsSelector == null || optionsSelector.isBlank()) {
+      return messageSelector;
+    } else if (messageSelector == null || messageSelector.isBlank()) {
+      return optionsSelector;
+    }
+    return "(" + messageSelector + ") AND (" + optionsSelector + ")";
+  }
+
+  @Override
+  public MessageConsumer createConsumer(Destination destination) throws JMSException {
+    AemConsumerOptions options = getConsumerOptions(destination);
+    return options != null
+        ? createConsumer(destination, options, null, false)
+        : gated(delegate.createConsumer(destination));
+  }
+
+  @Override
+  public MessageConsumer createConsumer(Destination destination, String messageSelector)
+      throws JMSException {
+    AemConsumerOptions options = getConsumerOptions(destination);
+    return options != null
+        ? createConsumer(destination, options, messageSelector, false)
+        : gated(delegate.createConsumer(destination, messageSelector));
+  }
+
+  @Override
+  public MessageConsumer createConsumer(
+      Destination destination, String messageSelector, boolean noLocal) throws JMSException {
+    AemConsumerOptions options = getConsumerOptions(destination);
+    return options != null
+        ? createConsumer(destination, options, messageSelector, noLocal)
+        : gated(delegate.createConsumer(destination, messageSelector, noLocal));
+  }
+
+  @Override
+  public void recover() throws JMSException {
+    delegate.recover();
+    for (Session session : consumerSessions) {
+      session.recover();
+    }
+  }
+
+  @Override
+  public void close() throws JMSException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    try {
+      for (Session session : consumerSessions) {
+        session.close();
+      }
+      delegate.close();
+    } finally {
+      if (onClose != null) {
+        onClose.run();
+      }
+    }
+  }
+
+  @Override
+  public BytesMessage createBytesMessage() throws JMSException {
+    return delegate.createBytesMessage();
+  }
+
+  @Override
+  public MapMessage createMapMessage() throws JMSException {
+    return delegate.createMapMessage();
+  }
+
+  @Override
+  public Message createMessage() throws JMSException {
+    return delegate.createMessage();
+  }
+
+  @Override
+  public ObjectMessage createObjectMessage() throws JMSException {
+    return delegate.createObjectMessage();
+  }
+
+  @Override
+  public ObjectMessage createObjectMessage(Serializable object) throws JMSException {
+    return delegate.createObjectMessage(object);
+  }
+
+  @Override
+  public StreamMessage createStreamMessage() throws JMSException {
+    return delegate.createStreamMessage();
+  }
+
+  @Override
+  public TextMessage createTextMessage() throws JMSException {
+    return delegate.createTextMessage();
+  }
+
+  @Override
+  public TextMessage createTextMessage(String text) throws JMSException {
+    return delegate.createTextMessage(text);
+  }
+
+  @Override
+  public boolean getTransacted() throws JMSException {
+    return delegate.getTransacted();
+  }
+
+  @Override
+  public int getAcknowledgeMode() throws JMSException {
+    return delegate.getAcknowledgeMode();
+  }
+
+  @Override
+  public void commit() throws JMSException {
+    delegate.commit();
+  }
+
+  @Override
+  public void rollback() throws JMSException {
+    delegate.rollback();
+  }
+
+  @Override
+  public MessageListener getMessageListener() throws JMSException {
+    return delegate.getMessageListener();
+  }
+
+  @Override
+  public void setMessageListener(MessageListener listener) throws JMSException {
+    delegate.setMessageListener(listener);
+  }
+
+  @Override
+  public void run() {
+    delegate.run();
+  }
+
+  @Override
+  public MessageProducer createProducer(Destination destination) throws JMSException {
+    return delegate.createProducer(destination);
+  }
+
+  @Override
+  public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName)
+      throws JMSException {
+    return gated(delegate.createSharedConsumer(topic, sharedSubscriptionName));
+  }
+
+  @Override
+  public MessageConsumer createSharedConsumer(
+      Topic topic, String sharedSubscriptionName, String messageSelector) throws JMSException {
+    return gated(delegate.createSharedConsumer(topic, sharedSubscriptionName, messageSelector));
+  }
+
+  @Override
+  public Queue createQueue(String queueName) throws JMSException {
+    return delegate.createQueue(queueName);
+  }
+
+  @Override
+  public Topic createTopic(String topicName) throws JMSException {
+    return delegate.createTopic(topicName);
+  }
+
+  @Override
+  public TopicSubscriber createDurableSubscriber(Topic topic, String name) throws JMSException {
+    return delegate.createDurableSubscriber(topic, name);
+  }
+
+  @Override
+  public TopicSubscriber createDurableSubscriber(
+      Topic topic, String name, String messageSelector, boolean noLocal) throws JMSException {
+    return delegate.createDurableSubscriber(topic, name, messageSelector, noLocal);
+  }
+
+  @Override
+  public MessageConsumer createDurableConsumer(Topic topic, String name) throws JMSException {
+    return gated(delegate.createDurableConsumer(topic, name));
+  }
+
+  @Override
+  public MessageConsumer createDurableConsumer(
+      Topic topic, String name, String messageSelector, boolean noLocal) throws JMSException {
+    return gated(delegate.createDurableConsumer(topic, name, messageSelector, noLocal));
+  }
+
+  @Override
+  public MessageConsumer createSharedDurableConsumer(Topic topic, String name)
+      throws JMSException {
+    return gated(delegate.createSharedDurableConsumer(topic, name));
+  }
+
+  @Override
+  public MessageConsumer createSharedDurableConsumer(
+      Topic topic, String name, String messageSelector) throws JMSException {
+    return gated(delegate.createSharedDurableConsumer(topic, name, messageSelector));
+  }
+
+  @Override
+  public QueueBrowser createBrowser(Queue queue) throws JMSException {
+    return delegate.createBrowser(queue);
+  }
+
+  @Override
+  public QueueBrowser createBrowser(Queue queue, String messageSelector) throws JMSException {
+    return delegate.createBrowser(queue, messageSelector);
+  }
+
+  @Override
+  public TemporaryQueue createTemporaryQueue() throws JMSException {
+    return delegate.createTemporaryQueue();
+  }
+
+  @Override
+  public TemporaryTopic createTemporaryTopic() throws JMSException {
+    return delegate.createTemporaryTopic();
+  }
+
+  @Override
+  public void unsubscribe(String name) throws JMSException {
+    delegate.unsubscribe(name);
+  }
+}
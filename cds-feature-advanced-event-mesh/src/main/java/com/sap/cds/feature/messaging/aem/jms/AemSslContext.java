@@ -0,0 +1,163 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.sap.cds.services.ServiceException;
+import java.security.GeneralSecurityException;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * AemSslContext is the SSL context shared by the AMQP connections of a binding. The TLS sessions
+ * negotiated with the broker are kept in the client session cache of the context, so that the
+ * connections opened later, e.g. on a reconnect, can resume them with an abbreviated handshake.
+ * The duration of the handshakes is measured to confirm that sessions are resumed.
+ */
+public class AemSslContext extends SSLContext {
+
+  private final Handshakes handshakes;
+
+  private AemSslContext(SSLContext delegate, Handshakes handshakes) {
+    super(new Spi(delegate, handshakes), delegate.getProvider(), delegate.getProtocol());
+    this.handshakes = handshakes;
+  }
+
+  /**
+   * Creates an SSL context with the default key and trust managers of the JVM.
+   *
+   * @return the SSL context
+   * @throws ServiceException if the SSL context could not be created
+   */
+  static AemSslContext create() {
+    try {
+      SSLContext delegate = SSLContext.getInstance("TLS");
+      delegate.init(null, null, null);
+      return new AemSslContext(delegate, new Handshakes());
+    } catch (GeneralSecurityException e) {
+      throw new ServiceException("Failed to create the SSL context of the broker connection.", e);
+    }
+  }
+
+  /**
+   * Returns the number of TLS handshakes completed with this context.
+   *
+   * @return the number of handshakes
+   */
+  public long getHandshakes() {
+    return handshakes.getCount();
+  }
+
+  /**
+   * Returns the duration of the last TLS handshake.
+   *
+   * @return the duration in milliseconds
+   */
+  public long getLastHandshakeMillis() {
+    return handshakes.getLastMillis();
+  }
+
+  /**
+   * Returns the average duration of the TLS handshakes.
+   *
+   * @return the duration in milliseconds, {@code 0} if there was no handshake yet
+   */
+  public double getAverageHandshakeMillis() {
+    return handshakes.getAverageMillis();
+  }
+
+  /**
+   * Returns the longest duration of a TLS handshake.
+   *
+   * @return the duration in milliseconds
+   */
+  public long getMaxHandshakeMillis() {
+    return handshakes.getMaxMillis();
+  }
+
+  /** The statistics of the handshakes of the engines created by the context. */
+  static class Handshakes {
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private volatile long lastMillis;
+
+    void record(long millis) {
+      count.incrementAndGet();
+      totalMillis.addAndGet(millis);
+      maxMillis.accumulateAndGet(millis, Math::max);
+      lastMillis = millis;
+    }
+
+    long getCount() {
+      return count.get();
+    }
+
+    long getLastMillis() {
+      return lastMillis;
+    }
+
+    double getAverageMillis() {
+      long handshakes = count.get();
+      return handshakes > 0 ? (double) totalMillis.get() / handshakes : 0;
+    }
+
+    long getMaxMillis() {
+      return maxMillis.get();
+    }
+  }
+
+  private static class Spi extends SSLContextSpi {
+
+    private final SSLContext delegate;
+    private final Handshakes handshakes;
+
+    private Spi(SSLContext delegate, Handshakes handshakes) {
+      this.delegate = delegate;
+      this.handshakes = handshakes;
+    }
+
+    @Override
+    protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr)
+        throws KeyManagementException {
+      delegate.init(km, tm, sr);
+    }
+
+    @Override
+    protected SSLSocketFactory engineGetSocketFactory() {
+      return delegate.getSocketFactory();
+    }
+
+    @Override
+    protected SSLServerSocketFactory engineGetServerSocketFactory() {
+      return delegate.getServerSocketFactory();
+    }
+
+    @Override
+    protected SSLEngine engineCreateSSLEngine() {
+      return new AemSslEngine(delegate.createSSLEngine(), handshakes);
+    }
+
+    @Override
+    protected SSLEngine engineCreateSSLEngine(String host, int port) {
+      return new AemSslEngine(delegate.createSSLEngine(host, port), handshakes);
+    }
+
+    @Override
+    protected SSLSessionContext engineGetServerSessionContext() {
+      return delegate.getServerSessionContext();
+    }
+
+    @Override
+    protected SSLSessionContext engineGetClientSessionContext() {
+      return delegate.getClientSessionContext();
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemSslEngine wraps the SSL engine of a connection created by the {@link AemSslContext} and
+ * measures the duration of its initial handshake, from the first handshake message until the
+ * engine reports the handshake as finished.
+ */
+class AemSslEngine extends SSLEngine {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemSslEngine.class);
+
+  private final SSLEngine delegate;
+  private final AemSslContext.Handshakes handshakes;
+
+  private long handshakeStarted;
+  private boolean handshakeRecorded;
+
+  AemSslEngine(SSLEngine delegate, AemSslContext.Handshakes handshakes) {
+    super(delegate.getPeerHost(), delegate.getPeerPort());
+    this.delegate = delegate;
+    this.handshakes = handshakes;
+  }
+
+  private synchronized void startHandshake() {
+    if (handshakeStarted == 0 && !handshakeRecorded) {
+      handshakeStarted = System.nanoTime();
+    }
+  }
+
+  private synchronized SSLEngineResult record(SSLEngineResult result) {
+    if (!handshakeRecorded
+        && handshakeStarted != 0
+        && result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED) {
+      handshakeRecorded = true;
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - handshakeStarted);
+      handshakes.record(millis);
+      logger.debug(
+          "TLS handshake with {}:{} finished after {} ms.", getPeerHost(), getPeerPort(), millis);
+    }
+    return result;
+  }
+
+  @Override
+  public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst)
+      throws SSLException {
+    startHandshake();
+    return record(delegate.wrap(srcs, offset, length, dst));
+  }
+
+  @Override
+  public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length)
+      throws SSLException {
+    startHandshake();
+    return record(delegate.unwrap(src, dsts, offset, length));
+  }
+
+  @Override
+  public void beginHandshake() throws SSLException {
+    startHandshake();
+    delegate.beginHandshake();
+  }
+
+  @Override
+  public Runnable getDelegatedTask() {
+    return delegate.getDelegatedTask();
+  }
+
+  @Override
+  public void closeInbound() throws SSLException {
+    delegate.closeInbound();
+  }
+
+  @Override
+  public boolean isInboundDone() {
+    return delegate.isInboundDone();
+  }
+
+  @Override
+  public void closeOutbound() {
+    delegate.closeOutbound();
+  }
+
+  @Override
+  public boolean isOutboundDone() {
+    return delegate.isOutboundDone();
+  }
+
+  @Override
+  public String[] getSupportedCipherSuites() {
+    return delegate.getSupportedCipherSuites();
+  }
+
+  @Override
+  public String[] getEnabledCipherSuites() {
+    return delegate.getEnabledCipherSuites();
+  }
+
+  @Override
+  public void setEnabledCipherSuites(String[] suites) {
+    delegate.setEnabledCipherSuites(suites);
+  }
+
+  @Override
+  public String[] getSupportedProtocols() {
+    return delegate.getSupportedProtocols();
+  }
+
+  @Override
+  public String[] getEnabledProtocols() {
+    return delegate.getEnabledProtocols();
+  }
+
+  @Override
+  public void setEnabledProtocols(String[] protocols) {
+    delegate.setEnabledProtocols(protocols);
+  }
+
+  @Override
+  public SSLSession getSession() {
+    return delegate.getSession();
+  }
+
+  @Override
+  public SSLSession getHandshakeSession() {
+    return delegate.getHandshakeSession();
+  }
+
+  @Override
+  public SSLEngineResult.HandshakeStatus getHandshakeStatus() {
+    return delegate.getHandshakeStatus();
+  }
+
+  @Override
+  public void setUseClientMode(boolean mode) {
+    delegate.setUseClientMode(mode);
+  }
+
+  @Override
+  public boolean getUseClientMode() {
+    return delegate.getUseClientMode();
+  }
+
+  @Override
+  public void setNeedClientAuth(boolean need) {
+    delegate.setNeedClientAuth(need);
+  }
+
+  @Override
+  public boolean getNeedClientAuth() {
+    return delegate.getNeedClientAuth();
+  }
+
+  @Override
+  public void setWantClientAuth(boolean want) {
+    delegate.setWantClientAuth(want);
+  }
+
+  @Override
+  public boolean getWantClientAuth() {
+    return delegate.getWantClientAuth();
+  }
+
+  @Override
+  public void setEnableSessionCreation(boolean flag) {
+    delegate.setEnableSessionCreation(flag);
+  }
+
+  @Override
+  public boolean getEnableSessionCreation() {
+    return delegate.getEnableSessionCreation();
+  }
+
+  @Override
+  public SSLParameters getSSLParameters() {
+    return delegate.getSSLParameters();
+  }
+
+  @Override
+  public void setSSLParameters(SSLParameters params) {
+    delegate.setSSLParameters(params);
+  }
+
+  @Override
+  public String getApplicationProtocol() {
+    return delegate.getApplicationProtocol();
+  }
+
+  @Override
+  public String getHandshakeApplicationProtocol() {
+    return delegate.getHandshakeApplicationProtocol();
+  }
+
+  @Override
+  public void setHandshakeApplicationProtocolSelector(
+      BiFunction<SSLEngine, List<String>, String> selector) {
+    delegate.setHandshakeApplicationProtocolSelector(selector);
+  }
+
+  @Override
+  public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+    return delegate.getHandshakeApplicationProtocolSelector();
+  }
+}
@@ -0,0 +1,190 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.cds.services.ServiceException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemTokenCache keeps the OAuth token used as password of the AMQP connections, so that connects
+ * and reconnects are served from memory. The expiry is read from the {@code exp} claim of the JWT.
+ * The token is refreshed in the background, once the given fraction of its lifetime has passed, and
+ * fetched synchronously only if it has expired.
+ */
+public class AemTokenCache implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemTokenCache.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final long DEFAULT_LIFETIME_MILLIS = Duration.ofMinutes(1).toMillis();
+  private static final long MAX_EXPIRY_MARGIN_MILLIS = Duration.ofSeconds(30).toMillis();
+  private static final long RETRY_DELAY_MILLIS = Duration.ofSeconds(10).toMillis();
+
+  private final Supplier<Optional<String>> fetcher;
+  private final double refreshRatio;
+  private final LongSupplier clock;
+
+  private volatile Token token;
+  private ScheduledExecutorService refresher;
+  private long refreshCount;
+  private long failureCount;
+  private long lastRefreshMillis;
+
+  private record Token(String value, long refreshAt, long expiresAt) {}
+
+  AemTokenCache(Supplier<Optional<String>> fetcher, double refreshRatio) {
+    this(fetcher, refreshRatio, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  AemTokenCache(Supplier<Optional<String>> fetcher, double refreshRatio, LongSupplier clock) {
+    this.fetcher = fetcher;
+    this.refreshRatio = refreshRatio;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the cached token, or fetches a new token if the cached one has expired.
+   *
+   * @return the token
+   * @throws ServiceException if the token could not be fetched
+   */
+  String getToken() {
+    Token current = this.token;
+    if (current != null && clock.getAsLong() < current.expiresAt()) {
+      return current.value();
+    }
+    return refresh(false).value();
+  }
+
+  private synchronized Token refresh(boolean background) {
+    Token current = this.token;
+    long now = clock.getAsLong();
+    if (current != null && now < (background ? current.refreshAt() : current.expiresAt())) {
+      // refreshed by another thread in the meantime
+      return current;
+    }
+
+    long started = System.nanoTime();
+    String value;
+    try {
+      value = fetcher.get().orElseThrow(() -> new ServiceException("Token is missing"));
+    } catch (RuntimeException e) {
+      failureCount++;
+      logger.warn(
+          "Failed to fetch the token for the broker connection ({} failures).", failureCount, e);
+      throw e;
+    }
+    lastRefreshMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    refreshCount++;
+
+    long fetched = clock.getAsLong();
+    OptionalLong expiry = getExpiry(value);
+    long lifetime =
+        expiry.isPresent() ? Math.max(expiry.getAsLong() - fetched, 0) : DEFAULT_LIFETIME_MILLIS;
+    Token refreshed =
+        new Token(
+            value,
+            fetched + (long) (lifetime * refreshRatio),
+            fetched + lifetime - Math.min(lifetime / 10, MAX_EXPIRY_MARGIN_MILLIS));
+    this.token = refreshed;
+    logger.debug(
+        "Fetched the token for the broker connection in {} ms, valid for {} s.",
+        lastRefreshMillis,
+        TimeUnit.MILLISECONDS.toSeconds(lifetime));
+    schedule(refreshed.refreshAt() - fetched);
+    return refreshed;
+  }
+
+  private synchronized void schedule(long delayMillis) {
+    if (refresher == null) {
+      refresher =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "aem-token-refresh");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    refresher.schedule(this::refreshInBackground, Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+  }
+
+  private void refreshInBackground() {
+    try {
+      refresh(true);
+    } catch (RuntimeException e) {
+      logger.debug("Retrying to refresh the token in {} ms.", RETRY_DELAY_MILLIS, e);
+      schedule(RETRY_DELAY_MILLIS);
+    }
+  }
+
+  /**
+   * Returns the expiry of a JWT in milliseconds since the epoch.
+   *
+   * @param token the JWT
+   * @return the expiry or empty, if the token is no JWT or has no expiry
+   */
+  static OptionalLong getExpiry(String token) {
+    int header = token.indexOf('.');
+    int payload = header >= 0 ? token.indexOf('.', header + 1) : -1;
+    if (payload < 0) {
+      return OptionalLong.empty();
+    }
+    try {
+      JsonNode exp =
+          MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(header + 1, payload)))
+              .get("exp");
+      return exp != null && exp.canConvertToLong()
+          ? OptionalLong.of(TimeUnit.SECONDS.toMillis(exp.asLong()))
+          : OptionalLong.empty();
+    } catch (IllegalArgumentException | IOException e) {
+      return OptionalLong.empty();
+    }
+  }
+
+  /**
+   * Returns the number of tokens fetched, in the background or because the cached one had expired.
+   *
+   * @return the number of tokens fetched
+   */
+  public synchronized long getRefreshCount() {
+    return refreshCount;
+  }
+
+  /**
+   * Returns the number of failed attempts to fetch a token.
+   *
+   * @return the number of failures
+   */
+  public synchronized long getFailureCount() {
+    return failureCount;
+  }
+
+  /**
+   * Returns the duration of the last fetch of a token.
+   *
+   * @return the duration in milliseconds
+   */
+  public synchronized long getLastRefreshMillis() {
+    return lastRefreshMillis;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (refresher != null) {
+      refresher.shutdownNow();
+      refresher = null;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import com.sap.cds.services.ServiceException;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemTransportProfile is a set of options of the Netty transport and the AMQP protocol of the Qpid
+ * connections, which are added to each AMQP URI of the connection. The {@code low-latency} profile
+ * sends small messages without delay, the {@code throughput} profile lets the socket coalesce them
+ * and uses larger socket buffers. Both use the native epoll transport, if it is available.
+ */
+enum AemTransportProfile {
+  DEFAULT(List.of()),
+  LOW_LATENCY(
+      List.of(
+          "transport.useEpoll=true",
+          "transport.tcpNoDelay=true",
+          "transport.tcpKeepAlive=true",
+          "transport.sendBufferSize=65536",
+          "transport.receiveBufferSize=65536")),
+  THROUGHPUT(
+      List.of(
+          "transport.useEpoll=true",
+          "transport.tcpNoDelay=false",
+          "transport.tcpKeepAlive=true",
+          "transport.sendBufferSize=1048576",
+          "transport.receiveBufferSize=1048576",
+          "amqp.maxFrameSize=1048576"));
+
+  private static final Logger logger = LoggerFactory.getLogger(AemTransportProfile.class);
+  private static final String EPOLL_CLASS = "io.netty.channel.epoll.Epoll";
+
+  private final List<String> options;
+
+  AemTransportProfile(List<String> options) {
+    this.options = options;
+  }
+
+  /**
+   * Returns the transport and AMQP options of the profile.
+   *
+   * @return the options in the form {@code key=value}
+   */
+  List<String> getOptions() {
+    return options;
+  }
+
+  /**
+   * Returns the profile with the given name, e.g. {@code low-latency}.
+   *
+   * @param name the name of the profile or {@code null}
+   * @return the profile, {@link #DEFAULT} if no name is given
+   * @throws ServiceException if there is no profile with the given name
+   */
+  static AemTransportProfile of(String name) {
+    if (name == null || name.isBlank()) {
+      return DEFAULT;
+    }
+    String constant = name.trim().replace('-', '_').toUpperCase(Locale.ROOT);
+    if (constant.equals("LOWLATENCY")) {
+      constant = LOW_LATENCY.name();
+    }
+    try {
+      return valueOf(constant);
+    } catch (IllegalArgumentException e) {
+      throw new ServiceException(
+          "Unknown transport profile '"
+              + name
+              + "', supported are 'default', 'low-latency' and 'throughput'.",
+          e);
+    }
+  }
+
+  /**
+   * Returns whether the native epoll transport of Netty can be used on this platform.
+   *
+   * @return {@code true} if the native transport is available
+   */
+  static boolean isNativeTransportAvailable() {
+    try {
+      Class<?> epoll = Class.forName(EPOLL_CLASS);
+      boolean available = (Boolean) epoll.getMethod("isAvailable").invoke(null);
+      if (!available) {
+        logger.debug(
+            "The native epoll transport is not available.",
+            (Throwable) epoll.getMethod("unavailabilityCause").invoke(null));
+      }
+      return available;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      logger.debug("The native epoll transport is not on the classpath.", e);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.cds.feature.messaging.aem.client.AemValidationClient;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemBrokerValidator validates AEM brokers with the AEM validation service in the background. The
+ * validation of a management endpoint and subaccount is shared by all messaging services of the
+ * application and is only repeated if it failed or its time to live has elapsed. The validator owns
+ * the time to live: while an expired validation is repeated in the background, the last successful
+ * one stays valid.
+ */
+class AemBrokerValidator {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemBrokerValidator.class);
+  private static final CompletableFuture<Void> VALID = CompletableFuture.completedFuture(null);
+
+  private final AemValidationClient validationClient;
+  private final Executor executor;
+  private final LongSupplier clock;
+  private final Map<String, Validation> validations = new ConcurrentHashMap<>();
+
+  AemBrokerValidator(AemValidationClient validationClient) {
+    this(validationClient, ForkJoinPool.commonPool(), System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  AemBrokerValidator(AemValidationClient validationClient, Executor executor, LongSupplier clock) {
+    this.validationClient = validationClient;
+    this.executor = executor;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the validation of the given management endpoint and subaccount. A new validation is
+   * started in the background if there is none yet, the last one failed or it is older than the
+   * given time to live. While an expired validation is repeated, a completed future is returned, as
+   * the last validation was successful.
+   *
+   * @param endpoint the management endpoint of the broker
+   * @param subaccountId the subaccount ID or {@code null}
+   * @param ttl the time to live of a successful validation or {@code null} if it does not expire
+   * @return the future of the validation
+   */
+  CompletableFuture<Void> validate(String endpoint, String subaccountId, Duration ttl) {
+    String key = subaccountId != null ? endpoint + "|" + subaccountId : endpoint;
+    long now = clock.getAsLong();
+    Validation current = validations.get(key);
+    if (current == null || isFailed(current) || isExpired(current, ttl, now)) {
+      current =
+          validations.compute(
+              key,
+              (k, validation) -> {
+                if (validation == null || isFailed(validation)) {
+                  return new Validation(start(endpoint, subaccountId), now, false);
+                }
+                if (isExpired(validation, ttl, now)) {
+                  return new Validation(start(endpoint, subaccountId), now, true);
+                }
+                return validation;
+              });
+    }
+    return current.revalidating() && !current.future().isDone() ? VALID : current.future();
+  }
+
+  private CompletableFuture<Void> start(String endpoint, String subaccountId) {
+    logger.debug("Validating the AEM broker '{}'", endpoint);
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            validationClient.validate(endpoint, subaccountId);
+            logger.debug("Successfully validated the AEM broker '{}'", endpoint);
+          } catch (IOException | URISyntaxException e) {
+            throw new CompletionException(e);
+          }
+        },
+        executor);
+  }
+
+  private static boolean isFailed(Validation validation) {
+    return validation.future().isCompletedExceptionally();
+  }
+
+  private static boolean isExpired(Validation validation, Duration ttl, long now) {
+    return ttl != null && validation.future().isDone() && now - validation.started() >= ttl.toMillis();
+  }
+
+  private record Validation(CompletableFuture<Void> future, long started, boolean revalidating) {}
+}
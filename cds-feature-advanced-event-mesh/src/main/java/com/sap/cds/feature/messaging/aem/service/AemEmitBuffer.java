@@ -0,0 +1,169 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.TopicMessageEventContext;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * AemEmitBuffer holds the messages emitted while the broker connection is still being established.
+ * The buffer is bounded by the number of messages and the size of their data. Once the connection
+ * is ready, the buffered messages are flushed in one batch and all further messages are emitted
+ * directly.
+ *
+ * <p>The buffer only exists in memory and a buffered message is reported as emitted to the caller,
+ * e.g. the outbox. Buffered messages are lost on a crash and discarded when the service is stopped
+ * before the connection is ready, so the buffer gives at-most-once delivery.
+ */
+class AemEmitBuffer {
+
+  /** Determines what happens with a message that does not fit into the buffer anymore. */
+  enum OverflowPolicy {
+    /** Waits until the buffer has been flushed or the timeout has elapsed. */
+    BLOCK,
+    /** Rejects the message immediately. */
+    FAIL
+  }
+
+  private final int maxMessages;
+  private final long maxBytes;
+  private final OverflowPolicy overflowPolicy;
+  private final Duration blockTimeout;
+
+  private final List<String> topics = new ArrayList<>();
+  private final List<TopicMessageEventContext> contexts = new ArrayList<>();
+  private long bytes;
+  private boolean closed;
+  private volatile boolean flushed;
+
+  AemEmitBuffer(
+      int maxMessages, long maxBytes, OverflowPolicy overflowPolicy, Duration blockTimeout) {
+    this.maxMessages = maxMessages;
+    this.maxBytes = maxBytes;
+    this.overflowPolicy = overflowPolicy;
+    this.blockTimeout = blockTimeout;
+  }
+
+  /**
+   * Returns whether messages are buffered at all.
+   *
+   * @return {@code true} if the buffer can hold messages
+   */
+  boolean isEnabled() {
+    return this.maxMessages > 0;
+  }
+
+  /**
+   * Returns whether the buffer has been flushed, i.e. messages need to be emitted directly.
+   *
+   * @return {@code true} if the buffer has been flushed
+   */
+  boolean isFlushed() {
+    return this.flushed;
+  }
+
+  /**
+   * Adds the message to the buffer, if it has not been flushed yet.
+   *
+   * @param topic the topic of the message
+   * @param context the context of the message
+   * @return {@code true} if the message has been buffered, {@code false} if the buffer has already
+   *     been flushed and the message needs to be emitted directly
+   * @throws ServiceException if the message does not fit into the buffer
+   */
+  synchronized boolean offer(String topic, TopicMessageEventContext context) {
+    if (this.flushed) {
+      return false;
+    }
+
+    long size = sizeOf(context);
+    if (this.closed || this.maxMessages <= 0 || size > this.maxBytes) {
+      throw new ServiceException("The broker connection has not been established yet.");
+    }
+
+    long deadline = System.nanoTime() + this.blockTimeout.toNanos();
+    while (!this.flushed && !fits(size)) {
+      long remaining = deadline - System.nanoTime();
+      if (this.closed || this.overflowPolicy == OverflowPolicy.FAIL || remaining <= 0) {
+        throw new ServiceException(
+            "The emit buffer is full, the broker connection has not been established yet.");
+      }
+      try {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServiceException("Interrupted while waiting for the broker connection.", e);
+      }
+    }
+    if (this.flushed) {
+      return false;
+    }
+
+    this.topics.add(topic);
+    this.contexts.add(context);
+    this.bytes += size;
+    return true;
+  }
+
+  private boolean fits(long size) {
+    return this.topics.size() < this.maxMessages && this.bytes + size <= this.maxBytes;
+  }
+
+  /**
+   * Flushes the buffered messages with the given emitter. Messages offered meanwhile wait until the
+   * flush has finished and are then emitted directly, so that the order of the messages is kept.
+   *
+   * @param emitter emits the topics and contexts of the buffered messages
+   */
+  synchronized void flush(BiConsumer<List<String>, List<TopicMessageEventContext>> emitter) {
+    if (this.flushed) {
+      return;
+    }
+    this.flushed = true;
+    notifyAll();
+
+    if (!this.topics.isEmpty()) {
+      List<String> bufferedTopics = List.copyOf(this.topics);
+      List<TopicMessageEventContext> bufferedContexts = List.copyOf(this.contexts);
+      clear();
+      emitter.accept(bufferedTopics, bufferedContexts);
+    }
+  }
+
+  /**
+   * Closes the buffer and discards the buffered messages.
+   *
+   * @return the number of discarded messages
+   */
+  synchronized int close() {
+    this.closed = true;
+    int discarded = this.topics.size();
+    clear();
+    notifyAll();
+    return discarded;
+  }
+
+  /**
+   * Returns the number of buffered messages.
+   *
+   * @return the number of buffered messages
+   */
+  synchronized int size() {
+    return this.topics.size();
+  }
+
+  private void clear() {
+    this.topics.clear();
+    this.contexts.clear();
+    this.bytes = 0;
+  }
+
+  private static long sizeOf(TopicMessageEventContext context) {
+    String data = context.getData();
+    return data != null ? data.getBytes(StandardCharsets.UTF_8).length : 0;
+  }
+}
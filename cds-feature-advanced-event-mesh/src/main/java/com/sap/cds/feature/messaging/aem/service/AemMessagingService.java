@@ -1,11 +1,27 @@
 package com.sap.cds.feature.messaging.aem.service;
 
 import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_DEAD_MSG_QUEUE;
+import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_MAX_REDELIVERY_COUNT;
+import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_REDELIVERY_DELAY_ENABLED;
+import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_REDELIVERY_DELAY_INITIAL_INTERVAL;
+import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_REDELIVERY_DELAY_MAX_INTERVAL;
+import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_REDELIVERY_DELAY_MULTIPLIER;
+import static com.sap.cds.feature.messaging.aem.client.AemManagementClient.ATTR_REDELIVERY_ENABLED;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.sap.cds.feature.messaging.aem.client.AemManagementClient;
+import com.sap.cds.feature.messaging.aem.client.AemMonitorClient;
+import com.sap.cds.feature.messaging.aem.client.AemQueueMetrics;
 import com.sap.cds.feature.messaging.aem.client.AemValidationClient;
+import com.sap.cds.feature.messaging.aem.jms.AemBrokerConnection;
+import com.sap.cds.feature.messaging.aem.jms.AemConnectionMonitor;
+import com.sap.cds.feature.messaging.aem.jms.AemConsumerOptions;
+import com.sap.cds.feature.messaging.aem.jms.AemMessagePublisher;
+import com.sap.cds.feature.messaging.aem.jms.AemMessages;
 import com.sap.cds.feature.messaging.aem.jms.AemMessagingConnectionProvider;
+import com.sap.cds.feature.messaging.aem.jms.AemProducerCache;
+import com.sap.cds.feature.messaging.aem.jms.AemSslContext;
+import com.sap.cds.feature.messaging.aem.jms.AemTokenCache;
 import com.sap.cds.services.ServiceException;
 import com.sap.cds.services.environment.CdsProperties.Messaging.MessagingServiceConfig;
 import com.sap.cds.services.messaging.TopicMessageEventContext;
@@ -14,36 +30,92 @@ import com.sap.cds.services.messaging.service.AbstractMessagingService;
 import com.sap.cds.services.messaging.service.MessagingBrokerQueueListener;
 import com.sap.cds.services.runtime.CdsRuntime;
 import com.sap.cloud.environment.servicebinding.api.ServiceBinding;
+import jakarta.jms.Connection;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import org.apache.qpid.jms.message.JmsBytesMessage;
-import org.apache.qpid.jms.message.JmsTextMessage;
-import org.apache.qpid.jms.provider.amqp.message.AmqpJmsBytesMessageFacade;
-import org.apache.qpid.jms.provider.amqp.message.AmqpJmsTextMessageFacade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class AemMessagingService extends AbstractMessagingService {
   private static final Logger logger = LoggerFactory.getLogger(AemMessagingService.class);
+  private static final Duration DEFAULT_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration DEFAULT_PRODUCER_IDLE_TIMEOUT = Duration.ofMinutes(1);
+  private static final int DEFAULT_EMIT_BUFFER_SIZE = 0;
+  private static final long DEFAULT_EMIT_BUFFER_BYTES = 1024 * 1024;
+  private static final Duration DEFAULT_EMIT_BUFFER_TIMEOUT = Duration.ofSeconds(10);
+  private static final int DEFAULT_JOURNAL_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final int DEFAULT_JOURNAL_MAX_SEGMENTS = 8;
+  private static final Duration DEFAULT_JOURNAL_REPLAY_INTERVAL = Duration.ofSeconds(5);
+  private static final Duration DEFAULT_REDELIVERY_DELAY_MAX = Duration.ofMinutes(1);
+  private static final double DEFAULT_REDELIVERY_MULTIPLIER = 2;
+  private static final String SELECTOR_PREFIX = "selector.";
+  // the key of the settlement of a sent message in its context
+  private static final String SETTLEMENT = "aem.settlement";
 
   private final AemMessagingConnectionProvider connectionProvider;
   private final AemManagementClient managementClient;
-  private final AemValidationClient validationClient;
+  private final AemBrokerValidator brokerValidator;
 
   private volatile BrokerConnection connection;
-  private volatile Boolean aemBrokerValidated = false;
   private volatile Boolean skipManagement = false;
   private volatile String subaccountId = null;
+  private volatile int maxInFlight = 0;
+  private volatile Duration flushTimeout = DEFAULT_FLUSH_TIMEOUT;
+  private volatile Duration sendTimeout = AemMessagePublisher.DEFAULT_SEND_TIMEOUT;
+  private volatile Duration drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+  private volatile int producerCacheSize = 0;
+  private volatile Duration producerIdleTimeout = DEFAULT_PRODUCER_IDLE_TIMEOUT;
+  private volatile int connections = 1;
+  private volatile boolean transactedBatches = false;
+  private volatile Duration validationTtl = null;
+  private volatile AemEmitBuffer emitBuffer;
+  private volatile Path journalDirectory = null;
+  private volatile int journalSegmentSize = DEFAULT_JOURNAL_SEGMENT_SIZE;
+  private volatile int journalMaxSegments = DEFAULT_JOURNAL_MAX_SEGMENTS;
+  private volatile Duration journalReplayInterval = DEFAULT_JOURNAL_REPLAY_INTERVAL;
+  private volatile AemPublishJournal journal;
+  private volatile ScheduledExecutorService journalReplayer;
+  private volatile int consumers = 1;
+  private volatile Duration redeliveryDelay = Duration.ZERO;
+  private volatile Duration redeliveryDelayMax = DEFAULT_REDELIVERY_DELAY_MAX;
+  private volatile double redeliveryMultiplier = DEFAULT_REDELIVERY_MULTIPLIER;
+  private volatile Integer maxRedeliveryCount = null;
+  private volatile AemConsumerOptions consumerOptions = new AemConsumerOptions();
+  private volatile Map<String, String> selectors = Map.of();
+  private volatile List<AemMessagePublisher> publishers = List.of();
+  // the publisher of batches on the current connection, if there are no publishers
+  private AemMessagePublisher batchPublisher;
+  private Connection batchConnection;
+  // collects the messages emitted by emitTopicMessages on the current thread
+  private final ThreadLocal<Batch> batch = new ThreadLocal<>();
+  private final Set<String> queues = ConcurrentHashMap.newKeySet();
+  private final AemQueueMonitor queueMonitor;
+  private volatile Duration monitorInterval = Duration.ZERO;
 
   @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
   protected AemMessagingService(
       ServiceBinding binding,
-      ServiceBinding validationBinding,
+      AemBrokerValidator brokerValidator,
       MessagingServiceConfig serviceConfig,
       AemMessagingConnectionProvider connectionProvider,
       CdsRuntime runtime) {
@@ -52,9 +124,14 @@ public class AemMessagingService extends AbstractMessagingService {
 
     this.connectionProvider = connectionProvider;
     this.managementClient = new AemManagementClient(binding);
-    this.validationClient = new AemValidationClient(validationBinding);
+    this.brokerValidator = brokerValidator;
 
     applyConnectionProperties(serviceConfig);
+    // the queues are only monitored, if a monitor interval is configured
+    this.queueMonitor =
+        this.monitorInterval.toMillis() > 0
+            ? new AemQueueMonitor(new AemMonitorClient(binding), this.queues)
+            : null;
   }
 
   @VisibleForTesting
@@ -70,7 +147,9 @@ public class AemMessagingService extends AbstractMessagingService {
 
     this.connectionProvider = connectionProvider;
     this.managementClient = managementClient;
-    this.validationClient = validationClient;
+    this.brokerValidator =
+        new AemBrokerValidator(validationClient, Runnable::run, System::currentTimeMillis);
+    this.queueMonitor = null;
     this.connection = connection;
 
     applyConnectionProperties(serviceConfig);
@@ -84,6 +163,238 @@ public class AemMessagingService extends AbstractMessagingService {
     String subaccountId = properties.getOrDefault("subaccountId", null);
     String subaccount_Id = properties.getOrDefault("subaccount-id", null);
     this.subaccountId = subaccountId != null ? subaccountId : subaccount_Id;
+    String maxInFlightProperty = getProperty(properties, "maxInFlight", "max-in-flight");
+    this.maxInFlight = maxInFlightProperty != null ? Integer.parseInt(maxInFlightProperty) : 0;
+    String flushTimeoutProperty = getProperty(properties, "flushTimeout", "flush-timeout");
+    if (flushTimeoutProperty != null) {
+      this.flushTimeout = Duration.ofMillis(Long.parseLong(flushTimeoutProperty));
+    }
+    String sendTimeoutProperty = getProperty(properties, "sendTimeout", "send-timeout");
+    if (sendTimeoutProperty != null) {
+      this.sendTimeout = Duration.ofMillis(Long.parseLong(sendTimeoutProperty));
+    }
+    String monitorIntervalProperty =
+        getProperty(properties, "monitorInterval", "monitor-interval");
+    if (monitorIntervalProperty != null) {
+      this.monitorInterval = Duration.ofMillis(Long.parseLong(monitorIntervalProperty));
+    }
+    String drainTimeoutProperty = getProperty(properties, "drainTimeout", "drain-timeout");
+    if (drainTimeoutProperty != null) {
+      this.drainTimeout = Duration.ofMillis(Long.parseLong(drainTimeoutProperty));
+    }
+    String producerCacheSizeProperty =
+        getProperty(properties, "producerCacheSize", "producer-cache-size");
+    this.producerCacheSize =
+        producerCacheSizeProperty != null ? Integer.parseInt(producerCacheSizeProperty) : 0;
+    String producerIdleTimeoutProperty =
+        getProperty(properties, "producerIdleTimeout", "producer-idle-timeout");
+    if (producerIdleTimeoutProperty != null) {
+      this.producerIdleTimeout = Duration.ofMillis(Long.parseLong(producerIdleTimeoutProperty));
+    }
+    String connectionsProperty = properties.get("connections");
+    this.connections = connectionsProperty != null ? Integer.parseInt(connectionsProperty) : 1;
+    String batchModeProperty = getProperty(properties, "batchMode", "batch-mode");
+    this.transactedBatches = "transacted".equalsIgnoreCase(batchModeProperty);
+    String validationTtlProperty = getProperty(properties, "validationTtl", "validation-ttl");
+    if (validationTtlProperty != null && Long.parseLong(validationTtlProperty) > 0) {
+      this.validationTtl = Duration.ofMillis(Long.parseLong(validationTtlProperty));
+    }
+    String emitBufferSizeProperty = getProperty(properties, "emitBufferSize", "emit-buffer-size");
+    String emitBufferBytesProperty =
+        getProperty(properties, "emitBufferBytes", "emit-buffer-bytes");
+    String emitBufferPolicyProperty =
+        getProperty(properties, "emitBufferPolicy", "emit-buffer-policy");
+    String emitBufferTimeoutProperty =
+        getProperty(properties, "emitBufferTimeout", "emit-buffer-timeout");
+    this.emitBuffer =
+        new AemEmitBuffer(
+            emitBufferSizeProperty != null
+                ? Integer.parseInt(emitBufferSizeProperty)
+                : DEFAULT_EMIT_BUFFER_SIZE,
+            emitBufferBytesProperty != null
+                ? Long.parseLong(emitBufferBytesProperty)
+                : DEFAULT_EMIT_BUFFER_BYTES,
+            "block".equalsIgnoreCase(emitBufferPolicyProperty)
+                ? AemEmitBuffer.OverflowPolicy.BLOCK
+                : AemEmitBuffer.OverflowPolicy.FAIL,
+            emitBufferTimeoutProperty != null
+                ? Duration.ofMillis(Long.parseLong(emitBufferTimeoutProperty))
+                : DEFAULT_EMIT_BUFFER_TIMEOUT);
+    String journalDirectoryProperty =
+        getProperty(properties, "journalDirectory", "journal-directory");
+    if (journalDirectoryProperty != null) {
+      this.journalDirectory = Path.of(journalDirectoryProperty);
+    }
+    String journalSegmentSizeProperty =
+        getProperty(properties, "journalSegmentSize", "journal-segment-size");
+    if (journalSegmentSizeProperty != null) {
+      this.journalSegmentSize = Integer.parseInt(journalSegmentSizeProperty);
+    }
+    String journalMaxSegmentsProperty =
+        getProperty(properties, "journalMaxSegments", "journal-max-segments");
+    if (journalMaxSegmentsProperty != null) {
+      this.journalMaxSegments = Integer.parseInt(journalMaxSegmentsProperty);
+    }
+    String journalReplayIntervalProperty =
+        getProperty(properties, "journalReplayInterval", "journal-replay-interval");
+    if (journalReplayIntervalProperty != null) {
+      this.journalReplayInterval = Duration.ofMillis(Long.parseLong(journalReplayIntervalProperty));
+    }
+    String consumersProperty = properties.get("consumers");
+    this.consumers = consumersProperty != null ? Integer.parseInt(consumersProperty) : 1;
+    String concurrencyProperty = properties.get("concurrency");
+    if (concurrencyProperty != null) {
+      this.consumerOptions.setConcurrency(Integer.parseInt(concurrencyProperty));
+    }
+    this.consumerOptions.setOrderingKey(getProperty(properties, "orderingKey", "ordering-key"));
+    String prefetchProperty = properties.get("prefetch");
+    if (prefetchProperty != null) {
+      this.consumerOptions.setPrefetch(Integer.parseInt(prefetchProperty));
+    }
+    this.consumerOptions.setAdaptivePrefetch(
+        Boolean.parseBoolean(getProperty(properties, "adaptivePrefetch", "adaptive-prefetch")));
+    this.consumerOptions.setVirtualThreads(
+        "virtual".equalsIgnoreCase(getProperty(properties, "dispatchMode", "dispatch-mode")));
+    String payloadBudgetProperty = getProperty(properties, "payloadBudget", "payload-budget");
+    if (payloadBudgetProperty != null) {
+      this.consumerOptions.setPayloadBudget(Long.parseLong(payloadBudgetProperty));
+    }
+    String deduplicationSizeProperty =
+        getProperty(properties, "deduplicationSize", "deduplication-size");
+    if (deduplicationSizeProperty != null) {
+      this.consumerOptions.setDeduplicationSize(Integer.parseInt(deduplicationSizeProperty));
+    }
+    String deduplicationTtlProperty =
+        getProperty(properties, "deduplicationTtl", "deduplication-ttl");
+    if (deduplicationTtlProperty != null) {
+      this.consumerOptions.setDeduplicationTtl(
+          Duration.ofMillis(Long.parseLong(deduplicationTtlProperty)));
+    }
+    this.consumerOptions.setDeduplicationKey(
+        getProperty(properties, "deduplicationKey", "deduplication-key"));
+    this.selectors = getSelectors(properties);
+    String redeliveryDelayProperty = getProperty(properties, "redeliveryDelay", "redelivery-delay");
+    if (redeliveryDelayProperty != null) {
+      this.redeliveryDelay = Duration.ofMillis(Long.parseLong(redeliveryDelayProperty));
+    }
+    String redeliveryDelayMaxProperty =
+        getProperty(properties, "redeliveryDelayMax", "redelivery-delay-max");
+    if (redeliveryDelayMaxProperty != null) {
+      this.redeliveryDelayMax = Duration.ofMillis(Long.parseLong(redeliveryDelayMaxProperty));
+    }
+    String redeliveryMultiplierProperty =
+        getProperty(properties, "redeliveryMultiplier", "redelivery-multiplier");
+    if (redeliveryMultiplierProperty != null) {
+      this.redeliveryMultiplier = Double.parseDouble(redeliveryMultiplierProperty);
+    }
+    String maxRedeliveryCountProperty =
+        getProperty(properties, "maxRedeliveryCount", "max-redelivery-count");
+    if (maxRedeliveryCountProperty != null) {
+      this.maxRedeliveryCount = Integer.parseInt(maxRedeliveryCountProperty);
+    }
+    if (this.skipManagement) {
+      // the queues are not created by the service, so that redeliveries are delayed by the consumer
+      this.consumerOptions
+          .setRedeliveryDelay(this.redeliveryDelay)
+          .setRedeliveryDelayMax(this.redeliveryDelayMax)
+          .setRedeliveryMultiplier(this.redeliveryMultiplier);
+    }
+    String receiveBatchSizeProperty =
+        getProperty(properties, "receiveBatchSize", "receive-batch-size");
+    if (receiveBatchSizeProperty != null) {
+      this.consumerOptions.setBatchSize(Integer.parseInt(receiveBatchSizeProperty));
+    }
+    String receiveBatchTimeoutProperty =
+        getProperty(properties, "receiveBatchTimeout", "receive-batch-timeout");
+    if (receiveBatchTimeoutProperty != null) {
+      this.consumerOptions.setBatchTimeout(
+          Duration.ofMillis(Long.parseLong(receiveBatchTimeoutProperty)));
+    }
+  }
+
+  // the selectors are configured per queue as properties 'selector.<queue>'
+  private static Map<String, String> getSelectors(Map<String, String> properties) {
+    Map<String, String> selectors = new HashMap<>();
+    properties.forEach(
+        (name, value) -> {
+          if (name.startsWith(SELECTOR_PREFIX) && name.length() > SELECTOR_PREFIX.length()) {
+            selectors.put(name.substring(SELECTOR_PREFIX.length()), value);
+          }
+        });
+    return Map.copyOf(selectors);
+  }
+
+  private static String getProperty(Map<String, String> properties, String name, String alias) {
+    String value = properties.get(name);
+    return value != null ? value : properties.get(alias);
+  }
+
+  /**
+   * Returns the latest monitoring data of the queues of this service, which is polled from the
+   * broker in the interval configured with the {@code monitorInterval} connection property.
+   *
+   * @return the metrics by queue name, empty if the queues are not monitored
+   */
+  public Map<String, AemQueueMetrics> getQueueMetrics() {
+    return this.queueMonitor != null ? this.queueMonitor.getMetrics() : Map.of();
+  }
+
+  /**
+   * Returns the number of messages spooled on the queues of this service, which have not been
+   * consumed yet. It can be used as a signal to scale the consumers of the queues.
+   *
+   * @return the number of messages spooled, {@code 0} if the queues are not monitored
+   */
+  public long getQueueLag() {
+    return this.queueMonitor != null ? this.queueMonitor.getLag() : 0;
+  }
+
+  /**
+   * Returns the monitor of the broker connection of this service, which measures the reconnects
+   * and the messages published while the connection was interrupted.
+   *
+   * @return the connection monitor, empty if the broker connection has not been established yet
+   */
+  public Optional<AemConnectionMonitor> getConnectionMonitor() {
+    return this.connection instanceof AemBrokerConnection aemConnection
+        ? Optional.of(aemConnection.getConnectionMonitor())
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the SSL context shared by the AMQP connections of the binding of this service, which
+   * measures the duration of the TLS handshakes with the broker.
+   *
+   * @return the SSL context, empty if the connections do not use a shared SSL context
+   */
+  public Optional<AemSslContext> getSslContext() {
+    return this.connectionProvider != null
+        ? this.connectionProvider.getSslContext()
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the cache of the OAuth token used by the AMQP connections of the binding of this
+   * service, which counts the refreshes of the token.
+   *
+   * @return the token cache, empty if the service has no connection provider
+   */
+  public Optional<AemTokenCache> getTokenCache() {
+    return Optional.ofNullable(this.connectionProvider)
+        .map(AemMessagingConnectionProvider::getTokenCache);
+  }
+
+  /**
+   * Returns the caches of the producers of the publishers of this service, which count the hits,
+   * misses and evictions of the cached producers.
+   *
+   * @return the producer caches, empty if the producers are not cached
+   */
+  public List<AemProducerCache> getProducerCaches() {
+    return this.publishers.stream()
+        .map(AemMessagePublisher::getProducerCache)
+        .filter(Objects::nonNull)
+        .toList();
   }
 
   @VisibleForTesting
@@ -91,22 +402,179 @@ public class AemMessagingService extends AbstractMessagingService {
     return this.skipManagement;
   }
 
+  @VisibleForTesting
+  int getMaxInFlight() {
+    return this.maxInFlight;
+  }
+
   @Override
   public void init() {
+    // the broker is validated in the background, so that the first emit does not have to wait
+    try {
+      brokerValidator.validate(
+          this.managementClient.getEndpoint(), this.subaccountId, this.validationTtl);
+    } catch (ServiceException e) {
+      logger.debug("Could not start the validation of the AEM endpoint.", e);
+    }
+
+    if (this.journalDirectory != null) {
+      openJournal(this.journalDirectory.resolve(getName()));
+    }
+
+    if (this.queueMonitor != null) {
+      this.queueMonitor.start(this.monitorInterval, getName());
+    }
+
     logger.debug("Creating the broker connection asynchronously with topic subscriptions.");
     this.asyncConnectionInitialization(
         connection -> {
           this.connection = connection;
+          if (connection instanceof AemBrokerConnection aemConnection) {
+            this.publishers = createPublishers(aemConnection);
+          }
+          // the messages of the journal are older than the buffered ones
+          replayJournal();
+          this.emitBuffer.flush(this::emitBuffered);
           super.init();
 
           logger.debug("The broker connection has been created.");
         });
   }
 
+  private List<AemMessagePublisher> createPublishers(AemBrokerConnection aemConnection) {
+    if (this.maxInFlight <= 0 && this.producerCacheSize <= 0 && this.connections <= 1) {
+      return List.of();
+    }
+    // the connections are opened before the queue listeners are registered, so that their
+    // consumers are distributed over all connections as well
+    List<Connection> jmsConnections = aemConnection.getJmsConnections(this.connections);
+    logger.debug(
+        "Publishing over {} connections with up to {} messages in flight and {} cached producers.",
+        jmsConnections.size(),
+        this.maxInFlight,
+        this.producerCacheSize);
+    return jmsConnections.stream().map(this::createPublisher).toList();
+  }
+
+  private AemMessagePublisher createPublisher(Connection jmsConnection) {
+    AemProducerCache producerCache =
+        this.producerCacheSize > 0
+            ? new AemProducerCache(jmsConnection, this.producerCacheSize, this.producerIdleTimeout)
+            : null;
+    return new AemMessagePublisher(
+        jmsConnection,
+        Math.max(this.maxInFlight, 0),
+        producerCache,
+        this.sendTimeout,
+        this::onPublishFailure);
+  }
+
+  /**
+   * Handles a message that the broker did not accept after it was sent asynchronously. It is
+   * written to the journal, if there is one, so that it is sent again.
+   */
+  private void onPublishFailure(
+      String topicAddress, TopicMessageEventContext messageEventContext, Exception exception) {
+    String topic =
+        topicAddress.startsWith("topic://") ? topicAddress.substring(8) : topicAddress;
+    AemPublishJournal journal = this.journal;
+    if (journal == null) {
+      // the settlement of the message has failed, which the emitter can await
+      logger.error("The broker did not accept the message for topic '{}'.", topic, exception);
+      return;
+    }
+    logger.warn(
+        "The broker did not accept the message for topic '{}', writing it to the journal.",
+        topic,
+        exception);
+    journal.append(topic, messageEventContext);
+  }
+
+  private void openJournal(Path directory) {
+    try {
+      this.journal =
+          new AemPublishJournal(directory, this.journalSegmentSize, this.journalMaxSegments);
+    } catch (IOException e) {
+      throw new ServiceException("Failed to open the journal in '" + directory + "'.", e);
+    }
+    logger.debug("Writing messages that could not be sent to the journal in '{}'.", directory);
+
+    long interval = this.journalReplayInterval.toMillis();
+    this.journalReplayer =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "aem-journal-" + getName());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.journalReplayer.scheduleWithFixedDelay(
+        this::replayJournal, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @VisibleForTesting
+  void replayJournal() {
+    AemPublishJournal journal = this.journal;
+    if (journal == null || journal.isEmpty() || this.connection == null) {
+      return;
+    }
+    try {
+      int replayed = journal.replay(this::send);
+      logger.info("Replayed {} messages from the journal.", replayed);
+    } catch (ServiceException e) {
+      logger.debug("Failed to replay the journal, the broker is still unreachable.", e);
+    } catch (RuntimeException e) {
+      // keeps the scheduled replay running, the message is replayed again with the next replay
+      logger.warn("Failed to replay the journal.", e);
+    }
+  }
+
+  @VisibleForTesting
+  void setPublishers(List<AemMessagePublisher> publishers) {
+    this.publishers = publishers;
+  }
+
   @Override
   public void stop() {
     logger.debug("Stopping the broker connection...");
 
+    // lets the handlers finish before their emits are flushed and the connection is closed
+    if (connection instanceof AemBrokerConnection aemConnection
+        && !this.drainTimeout.isZero()
+        && !aemConnection.drain(this.drainTimeout)) {
+      logger.warn(
+          "Not all queue listeners finished within {} ms, their messages will be redelivered.",
+          this.drainTimeout.toMillis());
+    }
+
+    int discarded = this.emitBuffer.close();
+    if (discarded > 0) {
+      logger.warn(
+          "Discarded {} messages emitted before the broker connection has been established.",
+          discarded);
+    }
+
+    if (this.journalReplayer != null) {
+      this.journalReplayer.shutdownNow();
+    }
+
+    if (this.queueMonitor != null) {
+      this.queueMonitor.close();
+    }
+
+    for (AemMessagePublisher publisher : publishers) {
+      try {
+        publisher.flush(this.flushTimeout);
+        publisher.close();
+      } catch (JMSException | ServiceException e) {
+        logger.warn("An error occurred while flushing the pending messages.", e);
+      }
+    }
+    closeBatchPublisher();
+
+    if (this.journal != null) {
+      this.journal.close();
+    }
+
     if (connection != null) {
       try {
         connection.close();
@@ -143,7 +611,30 @@ public class AemMessagingService extends AbstractMessagingService {
         managementClient.createQueue(dmQueue, Collections.emptyMap());
       }
     }
-    managementClient.createQueue(name, properties);
+    managementClient.createQueue(name, withRedeliveryAttributes(properties));
+  }
+
+  private Map<String, Object> withRedeliveryAttributes(Map<String, Object> properties) {
+    if (this.redeliveryDelay.isZero() && this.maxRedeliveryCount == null) {
+      return properties;
+    }
+    // the attributes configured for the queue take precedence
+    Map<String, Object> attributes = new HashMap<>(properties);
+    if (this.maxRedeliveryCount != null) {
+      attributes.putIfAbsent(ATTR_REDELIVERY_ENABLED, true);
+      attributes.putIfAbsent(ATTR_MAX_REDELIVERY_COUNT, this.maxRedeliveryCount);
+    }
+    if (!this.redeliveryDelay.isZero()) {
+      attributes.putIfAbsent(ATTR_REDELIVERY_DELAY_ENABLED, true);
+      attributes.putIfAbsent(
+          ATTR_REDELIVERY_DELAY_INITIAL_INTERVAL, this.redeliveryDelay.toMillis());
+      attributes.putIfAbsent(
+          ATTR_REDELIVERY_DELAY_MAX_INTERVAL,
+          Math.max(this.redeliveryDelayMax.toMillis(), this.redeliveryDelay.toMillis()));
+      attributes.putIfAbsent(
+          ATTR_REDELIVERY_DELAY_MULTIPLIER, Math.round(this.redeliveryMultiplier * 100));
+    }
+    return attributes;
   }
 
   @Override
@@ -160,13 +651,260 @@ public class AemMessagingService extends AbstractMessagingService {
   @Override
   protected void registerQueueListener(String queue, MessagingBrokerQueueListener listener)
       throws IOException {
-    connection.registerQueueListener(queue, listener, this::getMessageTopic);
+    this.queues.add(queue);
+    AemConsumerOptions options = getConsumerOptions(queue);
+    if (options.isCustomized() && connection instanceof AemBrokerConnection aemConnection) {
+      aemConnection.setConsumerOptions(queue, options);
+    }
+    // each registration opens a consumer on its own session, which share the messages of the queue
+    for (int i = 0; i < Math.max(this.consumers, 1); i++) {
+      connection.registerQueueListener(queue, listener, this::getMessageTopic);
+    }
+  }
+
+  private AemConsumerOptions getConsumerOptions(String queue) {
+    String selector = this.selectors.get(queue);
+    if (selector == null || selector.isBlank()) {
+      return this.consumerOptions;
+    }
+    return this.consumerOptions.copy().setSelector(selector);
   }
 
   @Override
   protected void emitTopicMessage(String topic, TopicMessageEventContext messageEventContext) {
+    Batch batch = this.batch.get();
+    if (batch != null) {
+      // sent by emitTopicMessages together with the other messages of the batch
+      batch.topics().add(topic);
+      batch.contexts().add(messageEventContext);
+      return;
+    }
+
+    AemEmitBuffer emitBuffer = this.emitBuffer;
+    if (emitBuffer.isEnabled()
+        && !emitBuffer.isFlushed()
+        && emitBuffer.offer(topic, messageEventContext)) {
+      logger.debug(
+          "Buffered message for topic '{}' until the broker connection is established.", topic);
+      return;
+    }
+
     this.validate(this.managementClient.getEndpoint());
-    this.connection.emitTopicMessage("topic://" + topic, messageEventContext);
+    AemPublishJournal journal = this.journal;
+    if (journal == null) {
+      send(topic, messageEventContext);
+    } else if (!journal.isEmpty()
+        && journal.appendIfNotEmpty(topic, messageEventContext)) {
+      // the journal is replayed first to keep the order of the messages
+      logger.debug("Wrote message for topic '{}' to the journal.", topic);
+    } else {
+      try {
+        send(topic, messageEventContext);
+      } catch (ServiceException e) {
+        logger.warn("Failed to emit message for topic '{}', writing it to the journal.", topic, e);
+        journal.append(topic, messageEventContext);
+      }
+    }
+  }
+
+  private void send(String topic, TopicMessageEventContext messageEventContext) {
+    requireConnection();
+    if (this.connection instanceof AemBrokerConnection aemConnection) {
+      aemConnection.getConnectionMonitor().recordPublish(1);
+    }
+    List<AemMessagePublisher> publishers = this.publishers;
+    CompletableFuture<Void> settlement;
+    if (!publishers.isEmpty()) {
+      // the same topic is always published over the same connection to keep its order
+      settlement =
+          publishers
+              .get(Math.floorMod(topic.hashCode(), publishers.size()))
+              .publish("topic://" + topic, messageEventContext);
+    } else {
+      this.connection.emitTopicMessage("topic://" + topic, messageEventContext);
+      settlement = CompletableFuture.completedFuture(null);
+    }
+    messageEventContext.put(SETTLEMENT, settlement);
+  }
+
+  /**
+   * Returns the settlement of a message emitted on this service. If messages are published
+   * asynchronously, the emit returns before the broker has accepted the message and the settlement
+   * fails with a {@link ServiceException}, if the broker rejects it. If a journal is configured,
+   * the rejected message is sent again from the journal.
+   *
+   * @param messageEventContext the context of the emitted message
+   * @return the settlement, empty if the message has not been sent, e.g. because it has been
+   *     written to the outbox, the emit buffer or the journal
+   */
+  @SuppressWarnings("unchecked")
+  public Optional<CompletableFuture<Void>> getSettlement(
+      TopicMessageEventContext messageEventContext) {
+    return messageEventContext.get(SETTLEMENT) instanceof CompletableFuture<?> settlement
+        ? Optional.of((CompletableFuture<Void>) settlement)
+        : Optional.empty();
+  }
+
+  /**
+   * Emits the messages of the given contexts as a batch. Each context is emitted on this service
+   * like a single message, so that its event is resolved to the topic and its data and headers are
+   * prepared by the same handlers. The messages are then sent on one session per connection and
+   * settled together, either by committing a local transaction or by waiting once for the broker to
+   * settle all of them, depending on the {@code batchMode} connection property. The order of the
+   * messages per topic is kept.
+   *
+   * <p>The batch is not written to the outbox. The service registered in the service catalog is
+   * outboxed and writes each emitted message to the outbox, which emits them one by one later. The
+   * method is therefore called on the service itself, e.g. unboxed with {@code
+   * OutboxService.unboxed(service)}, and a failed batch is thrown to the caller instead of being
+   * retried by the outbox.
+   *
+   * @param messageEventContexts the contexts of the messages to emit
+   * @throws ServiceException if not all messages have been accepted by the broker
+   */
+  public void emitTopicMessages(List<TopicMessageEventContext> messageEventContexts) {
+    Batch collected = new Batch(new ArrayList<>(), new ArrayList<>());
+    this.batch.set(collected);
+    try {
+      // the handlers of the service resolve the topics and pass the messages to emitTopicMessage
+      for (TopicMessageEventContext messageEventContext : messageEventContexts) {
+        emit(messageEventContext);
+      }
+    } finally {
+      this.batch.remove();
+    }
+    List<String> topics = collected.topics();
+    List<TopicMessageEventContext> contexts = collected.contexts();
+
+    AemEmitBuffer emitBuffer = this.emitBuffer;
+    int buffered = 0;
+    while (emitBuffer.isEnabled()
+        && !emitBuffer.isFlushed()
+        && buffered < topics.size()
+        && emitBuffer.offer(topics.get(buffered), contexts.get(buffered))) {
+      buffered++;
+    }
+    if (buffered == topics.size()) {
+      return;
+    }
+
+    topics = topics.subList(buffered, topics.size());
+    contexts = contexts.subList(buffered, contexts.size());
+    this.validate(this.managementClient.getEndpoint());
+    AemPublishJournal journal = this.journal;
+    if (journal != null && !journal.isEmpty()) {
+      for (int i = 0; i < topics.size(); i++) {
+        emitTopicMessage(topics.get(i), contexts.get(i));
+      }
+      return;
+    }
+    try {
+      emitBatch(topics, contexts);
+    } catch (ServiceException e) {
+      if (journal == null) {
+        throw e;
+      }
+      logger.warn("Failed to emit the batch, writing it to the journal.", e);
+      for (int i = 0; i < topics.size(); i++) {
+        journal.append(topics.get(i), contexts.get(i));
+      }
+    }
+  }
+
+  private void emitBuffered(List<String> topics, List<TopicMessageEventContext> contexts) {
+    logger.debug(
+        "Emitting {} messages buffered until the broker connection was established.",
+        topics.size());
+    AemPublishJournal journal = this.journal;
+    if (journal == null || journal.isEmpty()) {
+      try {
+        this.validate(this.managementClient.getEndpoint());
+        emitBatch(topics, contexts);
+        return;
+      } catch (ServiceException e) {
+        logger.warn("Failed to emit the buffered messages as batch, emitting them one by one.", e);
+      }
+    }
+    for (int i = 0; i < topics.size(); i++) {
+      try {
+        emitTopicMessage(topics.get(i), contexts.get(i));
+      } catch (ServiceException e) {
+        logger.error("Failed to emit the buffered message for topic '{}'.", topics.get(i), e);
+      }
+    }
+  }
+
+  private void emitBatch(List<String> topics, List<TopicMessageEventContext> contexts) {
+    requireConnection();
+    if (this.connection instanceof AemBrokerConnection aemConnection) {
+      aemConnection.getConnectionMonitor().recordPublish(topics.size());
+    }
+    List<AemMessagePublisher> publishers = this.publishers;
+    if (publishers.isEmpty()) {
+      if (this.connection instanceof AemBrokerConnection aemConnection) {
+        publishers = List.of(getBatchPublisher(aemConnection));
+      } else {
+        for (int i = 0; i < topics.size(); i++) {
+          this.connection.emitTopicMessage("topic://" + topics.get(i), contexts.get(i));
+        }
+        return;
+      }
+    }
+
+    // group the messages by publisher, the same topic is always published over the same connection
+    List<List<String>> publisherTopics = new ArrayList<>();
+    List<List<TopicMessageEventContext>> publisherContexts = new ArrayList<>();
+    for (int i = 0; i < publishers.size(); i++) {
+      publisherTopics.add(new ArrayList<>());
+      publisherContexts.add(new ArrayList<>());
+    }
+    for (int i = 0; i < topics.size(); i++) {
+      int index = Math.floorMod(topics.get(i).hashCode(), publishers.size());
+      publisherTopics.get(index).add("topic://" + topics.get(i));
+      publisherContexts.get(index).add(contexts.get(i));
+    }
+    for (int i = 0; i < publishers.size(); i++) {
+      if (!publisherTopics.get(i).isEmpty()) {
+        publishers
+            .get(i)
+            .publishBatch(
+                publisherTopics.get(i),
+                publisherContexts.get(i),
+                this.transactedBatches,
+                this.flushTimeout);
+      }
+    }
+  }
+
+  private synchronized AemMessagePublisher getBatchPublisher(AemBrokerConnection aemConnection) {
+    Connection jmsConnection = aemConnection.getJmsConnection();
+    if (this.batchPublisher == null || this.batchConnection != jmsConnection) {
+      // created again, when the broker connection has reconnected
+      closeBatchPublisher();
+      this.batchPublisher =
+          new AemMessagePublisher(jmsConnection, 0, null, this.sendTimeout, this::onPublishFailure);
+      this.batchConnection = jmsConnection;
+    }
+    return this.batchPublisher;
+  }
+
+  private synchronized void closeBatchPublisher() {
+    if (this.batchPublisher != null) {
+      try {
+        this.batchPublisher.close();
+      } catch (JMSException e) {
+        logger.debug("An error occurred while closing the batch publisher.", e);
+      }
+      this.batchPublisher = null;
+      this.batchConnection = null;
+    }
+  }
+
+  private void requireConnection() {
+    if (this.connection == null) {
+      // the outbox retries the message, unless the emit buffer is enabled
+      throw new ServiceException("The broker connection has not been established yet.");
+    }
   }
 
   private void asyncConnectionInitialization(Consumer<BrokerConnection> connectionConsumer) {
@@ -175,25 +913,21 @@ public class AemMessagingService extends AbstractMessagingService {
 
   @VisibleForTesting
   String getMessageTopic(Message message) {
-    if (message instanceof JmsTextMessage textMessage) {
-      if (textMessage.getFacade() instanceof AmqpJmsTextMessageFacade textMessageFacade) {
-        return textMessageFacade.getDestination().getAddress();
-      }
-    } else if (message instanceof JmsBytesMessage bytesMessage
-        && bytesMessage.getFacade() instanceof AmqpJmsBytesMessageFacade bytesMessageFacade) {
-      return bytesMessageFacade.getDestination().getAddress();
+    String topic = AemMessages.getTopic(message);
+    if (topic == null) {
+      logger.debug("Received message without topic address on service '{}'.", getName());
     }
-    return null;
+    return topic;
   }
 
   private void validate(String endpoint) {
-    if (!this.aemBrokerValidated) {
-      try {
-        validationClient.validate(endpoint, this.subaccountId);
-        this.aemBrokerValidated = true;
-      } catch (IOException | URISyntaxException e) {
-        throw new ServiceException("Failed to validate the AEM endpoint.", e);
-      }
+    // the validator owns the time to live of the validation, which all services share
+    try {
+      brokerValidator.validate(endpoint, this.subaccountId, this.validationTtl).join();
+    } catch (CompletionException | CancellationException e) {
+      throw new ServiceException("Failed to validate the AEM endpoint.", e.getCause());
     }
   }
+
+  private record Batch(List<String> topics, List<TopicMessageEventContext> contexts) {}
 }
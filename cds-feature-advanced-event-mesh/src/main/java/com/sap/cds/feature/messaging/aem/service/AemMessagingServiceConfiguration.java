@@ -3,6 +3,7 @@ package com.sap.cds.feature.messaging.aem.service;
 import static com.sap.cds.services.messaging.utils.MessagingOutboxUtils.outboxed;
 
 import com.google.common.base.Strings;
+import com.sap.cds.feature.messaging.aem.client.AemValidationClient;
 import com.sap.cds.feature.messaging.aem.client.binding.AemManagementOauth2PropertySupplier;
 import com.sap.cds.feature.messaging.aem.client.binding.AemValidationOAuth2PropertySupplier;
 import com.sap.cds.feature.messaging.aem.jms.AemMessagingConnectionProvider;
@@ -59,6 +60,9 @@ public class AemMessagingServiceConfiguration implements CdsRuntimeConfiguration
       logger.info("No service bindings with name '{}' found", BINDING_AEM_LABEL);
     } else {
       boolean isSingleBinding = bindings.size() == 1;
+      // the validations of the brokers are shared by all services
+      Optional<AemBrokerValidator> brokerValidator =
+          validationBinding.map(b -> new AemBrokerValidator(new AemValidationClient(b)));
 
       bindings.forEach(
           binding -> {
@@ -88,7 +92,7 @@ public class AemMessagingServiceConfiguration implements CdsRuntimeConfiguration
                       configurer.service(
                           createMessagingService(
                               binding,
-                              validationBinding,
+                              brokerValidator,
                               sharedConnectionProvider,
                               serviceConfig,
                               configurer.getCdsRuntime()));
@@ -119,7 +123,7 @@ public class AemMessagingServiceConfiguration implements CdsRuntimeConfiguration
                       configurer.service(
                           createMessagingService(
                               binding,
-                              validationBinding,
+                              brokerValidator,
                               sharedConnectionProvider,
                               serviceConfig,
                               configurer.getCdsRuntime()));
@@ -139,7 +143,7 @@ public class AemMessagingServiceConfiguration implements CdsRuntimeConfiguration
                 configurer.service(
                     createMessagingService(
                         binding,
-                        validationBinding,
+                        brokerValidator,
                         sharedConnectionProvider,
                         defConfig,
                         configurer.getCdsRuntime()));
@@ -159,16 +163,16 @@ public class AemMessagingServiceConfiguration implements CdsRuntimeConfiguration
 
   private MessagingService createMessagingService(
       ServiceBinding binding,
-      Optional<ServiceBinding> validationBinding,
+      Optional<AemBrokerValidator> brokerValidator,
       AemMessagingConnectionProvider sharedConnectionProvider,
       MessagingServiceConfig serviceConfig,
       CdsRuntime runtime) {
 
-    ServiceBinding valBnd =
-        validationBinding.orElseThrow(
+    AemBrokerValidator validator =
+        brokerValidator.orElseThrow(
             () -> new ServiceException("No binding for AEM Validation Service found."));
     MessagingService service =
-        new AemMessagingService(binding, valBnd, serviceConfig, sharedConnectionProvider, runtime);
+        new AemMessagingService(binding, validator, serviceConfig, sharedConnectionProvider, runtime);
 
     logger.debug(
         "Created messaging service '{}' for binding '{}'",
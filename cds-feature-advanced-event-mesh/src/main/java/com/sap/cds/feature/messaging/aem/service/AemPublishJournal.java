@@ -0,0 +1,352 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sap.cds.services.EventContext;
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.TopicMessageEventContext;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemPublishJournal is an append-only journal of the messages that could not be sent to the broker.
+ * The messages are written sequentially to memory-mapped segment files in a local directory and
+ * replayed in the same order once the broker is reachable again. Segments are deleted as soon as
+ * all of their messages have been replayed. A journal found in the directory on startup is
+ * recovered and replayed as well.
+ *
+ * <p>A segment starts with the position up to which it has been replayed, followed by records of
+ * the form {@code length, topicLength, topic, headersLength, headers, data}, the headers of the
+ * message are written as JSON. A record becomes visible by writing its length last, a length of
+ * {@code 0} marks the end of the segment.
+ *
+ * <p>Messages are sent during a replay without holding the lock of the journal, so that messages
+ * can be appended meanwhile.
+ */
+class AemPublishJournal implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemPublishJournal.class);
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int HEADER_SIZE = Long.BYTES;
+  private static final ObjectMapper mapper = new ObjectMapper();
+  private static final TypeReference<Map<String, Object>> HEADERS_TYPE = new TypeReference<>() {};
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private final Object replayLock = new Object();
+  private long nextSequence;
+  private volatile boolean empty = true;
+
+  /**
+   * Opens the journal in the given directory and recovers the segments that have not been replayed
+   * yet.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentSize the size of a segment file in bytes
+   * @param maxSegments the maximum number of segment files
+   * @throws IOException if the directory or the segment files could not be opened
+   */
+  AemPublishJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+    if (segmentSize <= HEADER_SIZE + 3 * Integer.BYTES || maxSegments <= 0) {
+      throw new IllegalArgumentException("The journal segment size and count are too small.");
+    }
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files =
+          stream
+              .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+              .sorted()
+              .toList();
+    }
+    for (Path file : files) {
+      Segment segment = Segment.open(file, sequenceOf(file), HEADER_SIZE);
+      this.nextSequence = segment.sequence + 1;
+      if (segment.isReplayed()) {
+        segment.delete();
+      } else {
+        this.segments.add(segment);
+      }
+    }
+    this.empty = this.segments.isEmpty();
+    if (!this.empty) {
+      logger.info("Recovered {} journal segments from '{}'.", this.segments.size(), directory);
+    }
+  }
+
+  /**
+   * Returns whether all messages of the journal have been replayed.
+   *
+   * @return {@code true} if the journal is empty
+   */
+  boolean isEmpty() {
+    return this.empty;
+  }
+
+  /**
+   * Appends a message to the journal.
+   *
+   * @param topic the topic of the message
+   * @param context the context of the message, its data and headers are written
+   * @throws ServiceException if the message does not fit into the journal
+   */
+  synchronized void append(String topic, TopicMessageEventContext context) {
+    byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+    byte[] headerBytes = toJson(context.getHeadersMap());
+    String data = context.getData();
+    byte[] dataBytes = data != null ? data.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    int length = 2 * Integer.BYTES + topicBytes.length + headerBytes.length + dataBytes.length;
+    if (HEADER_SIZE + Integer.BYTES + length > this.segmentSize) {
+      throw new ServiceException("The message is too large for the journal.");
+    }
+
+    Segment segment = this.segments.peekLast();
+    if (segment == null || !segment.fits(length)) {
+      if (this.segments.size() >= this.maxSegments) {
+        throw new ServiceException("The journal is full.");
+      }
+      segment = createSegment();
+    }
+    segment.append(topicBytes, headerBytes, dataBytes);
+    this.empty = false;
+  }
+
+  private static byte[] toJson(Map<String, Object> headers) {
+    if (headers == null || headers.isEmpty()) {
+      return new byte[0];
+    }
+    try {
+      return mapper.writeValueAsBytes(headers);
+    } catch (JsonProcessingException e) {
+      throw new ServiceException("Failed to write the headers of the message to the journal.", e);
+    }
+  }
+
+  private static TopicMessageEventContext toContext(byte[] headers, byte[] data) {
+    TopicMessageEventContext context = EventContext.create(TopicMessageEventContext.class, null);
+    context.setData(new String(data, StandardCharsets.UTF_8));
+    if (headers.length > 0) {
+      try {
+        context.setHeadersMap(mapper.readValue(headers, HEADERS_TYPE));
+      } catch (IOException e) {
+        throw new ServiceException("Failed to read the headers of a message of the journal.", e);
+      }
+    }
+    return context;
+  }
+
+  /**
+   * Appends a message to the journal, if it still contains messages that have not been replayed.
+   * Otherwise the message can be sent directly without overtaking the messages of the journal.
+   *
+   * @param topic the topic of the message
+   * @param context the context of the message
+   * @return {@code true} if the message has been appended
+   * @throws ServiceException if the message does not fit into the journal
+   */
+  synchronized boolean appendIfNotEmpty(String topic, TopicMessageEventContext context) {
+    if (this.empty) {
+      return false;
+    }
+    append(topic, context);
+    return true;
+  }
+
+  private Segment createSegment() {
+    long sequence = this.nextSequence++;
+    Path file = this.directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    try {
+      Segment segment = Segment.open(file, sequence, this.segmentSize);
+      this.segments.add(segment);
+      return segment;
+    } catch (IOException e) {
+      throw new ServiceException("Failed to create the journal segment '" + file + "'.", e);
+    }
+  }
+
+  /**
+   * Replays the messages of the journal in order with the given sender. The replay stops at the
+   * first message that cannot be sent, it is replayed again with the next replay. The messages are
+   * sent without holding the lock of the journal, messages appended meanwhile are replayed as part
+   * of the same replay.
+   *
+   * @param sender sends the topic and context of a message, fails with an exception if the message
+   *     could not be sent
+   * @return the number of replayed messages
+   */
+  int replay(BiConsumer<String, TopicMessageEventContext> sender) {
+    synchronized (this.replayLock) {
+      int replayed = 0;
+      Segment segment;
+      while ((segment = nextSegment()) != null) {
+        Record record = segment.read();
+        sender.accept(record.topic(), toContext(record.headers(), record.data()));
+        markReplayed(segment);
+        replayed++;
+      }
+      return replayed;
+    }
+  }
+
+  /** Returns the segment of the next message to replay, after deleting the replayed segments. */
+  private synchronized Segment nextSegment() {
+    Segment segment;
+    while ((segment = this.segments.peekFirst()) != null && segment.isReplayed()) {
+      this.segments.removeFirst();
+      segment.delete();
+    }
+    this.empty = segment == null;
+    return segment;
+  }
+
+  private synchronized void markReplayed(Segment segment) {
+    if (this.segments.peekFirst() == segment) {
+      segment.advance();
+    }
+  }
+
+  /**
+   * Returns the number of segment files of the journal.
+   *
+   * @return the number of segment files
+   */
+  synchronized int getSegmentCount() {
+    return this.segments.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    for (Segment segment : this.segments) {
+      segment.close();
+    }
+    this.segments.clear();
+  }
+
+  private static long sequenceOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private record Record(String topic, byte[] headers, byte[] data) {}
+
+  private static class Segment {
+
+    private final Path file;
+    private final long sequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int readPosition;
+    private int writePosition;
+
+    private Segment(Path file, long sequence, FileChannel channel, MappedByteBuffer buffer) {
+      this.file = file;
+      this.sequence = sequence;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    static Segment open(Path file, long sequence, int size) throws IOException {
+      FileChannel channel =
+          FileChannel.open(
+              file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      long mappedSize = Math.max(channel.size(), size);
+      Segment segment =
+          new Segment(
+              file, sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+
+      // a new segment starts with the header, an existing one continues after its last record
+      segment.readPosition = (int) Math.max(segment.buffer.getLong(0), HEADER_SIZE);
+      int position = segment.readPosition;
+      int length;
+      while (position + Integer.BYTES <= segment.buffer.capacity()
+          && (length = segment.buffer.getInt(position)) > 0
+          && position + Integer.BYTES + length <= segment.buffer.capacity()) {
+        position += Integer.BYTES + length;
+      }
+      segment.writePosition = position;
+      return segment;
+    }
+
+    boolean fits(int length) {
+      return this.writePosition + Integer.BYTES + length <= this.buffer.capacity();
+    }
+
+    boolean isReplayed() {
+      return this.readPosition >= this.writePosition;
+    }
+
+    void append(byte[] topic, byte[] headers, byte[] data) {
+      int position = this.writePosition + Integer.BYTES;
+      this.buffer.putInt(position, topic.length);
+      position += Integer.BYTES;
+      this.buffer.put(position, topic);
+      position += topic.length;
+      this.buffer.putInt(position, headers.length);
+      position += Integer.BYTES;
+      this.buffer.put(position, headers);
+      this.buffer.put(position + headers.length, data);
+      // the length is written last, so that a partially written record is not replayed
+      int length = 2 * Integer.BYTES + topic.length + headers.length + data.length;
+      this.buffer.putInt(this.writePosition, length);
+      this.writePosition += Integer.BYTES + length;
+    }
+
+    Record read() {
+      int length = this.buffer.getInt(this.readPosition);
+      int position = this.readPosition + Integer.BYTES;
+      byte[] topic = new byte[this.buffer.getInt(position)];
+      position += Integer.BYTES;
+      this.buffer.get(position, topic);
+      position += topic.length;
+      byte[] headers = new byte[this.buffer.getInt(position)];
+      position += Integer.BYTES;
+      this.buffer.get(position, headers);
+      position += headers.length;
+      byte[] data = new byte[this.readPosition + Integer.BYTES + length - position];
+      this.buffer.get(position, data);
+      return new Record(new String(topic, StandardCharsets.UTF_8), headers, data);
+    }
+
+    void advance() {
+      this.readPosition += Integer.BYTES + this.buffer.getInt(this.readPosition);
+      this.buffer.putLong(0, this.readPosition);
+    }
+
+    void close() {
+      try {
+        this.buffer.force();
+        this.channel.close();
+      } catch (IOException e) {
+        logger.warn("Failed to close the journal segment '{}'.", this.file, e);
+      }
+    }
+
+    void delete() {
+      try {
+        this.channel.close();
+        Files.deleteIfExists(this.file);
+      } catch (IOException e) {
+        logger.warn("Failed to delete the journal segment '{}'.", this.file, e);
+      }
+    }
+  }
+}
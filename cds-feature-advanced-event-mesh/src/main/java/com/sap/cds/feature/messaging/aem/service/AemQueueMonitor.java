@@ -0,0 +1,121 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sap.cds.feature.messaging.aem.client.AemMonitorClient;
+import com.sap.cds.feature.messaging.aem.client.AemQueueMetrics;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AemQueueMonitor polls the monitoring data of the queues of a messaging service in a fixed
+ * interval and keeps the latest metrics of each queue. The redelivery rate is derived from the
+ * redelivered messages of two consecutive polls.
+ */
+class AemQueueMonitor implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AemQueueMonitor.class);
+
+  private final AemMonitorClient client;
+  private final Set<String> queues;
+  private final LongSupplier clock;
+
+  private volatile Map<String, AemQueueMetrics> metrics = Map.of();
+  private volatile long polled;
+  private ScheduledExecutorService poller;
+
+  AemQueueMonitor(AemMonitorClient client, Set<String> queues) {
+    this(client, queues, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  AemQueueMonitor(AemMonitorClient client, Set<String> queues, LongSupplier clock) {
+    this.client = client;
+    this.queues = queues;
+    this.clock = clock;
+  }
+
+  synchronized void start(Duration interval, String name) {
+    if (poller != null) {
+      return;
+    }
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "aem-queue-monitor-" + name);
+              thread.setDaemon(true);
+              return thread;
+            });
+    poller.scheduleWithFixedDelay(
+        this::poll, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @VisibleForTesting
+  void poll() {
+    if (queues.isEmpty()) {
+      return;
+    }
+    try {
+      Map<String, AemQueueMetrics> current = client.getQueueMetrics(Set.copyOf(queues));
+      long now = clock.getAsLong();
+      Map<String, AemQueueMetrics> previous = this.metrics;
+      Map<String, AemQueueMetrics> updated = new HashMap<>();
+      for (AemQueueMetrics queue : current.values()) {
+        AemQueueMetrics last = previous.get(queue.queueName());
+        double rate = 0;
+        if (last != null && now > polled) {
+          long redelivered = Math.max(queue.redeliveredMsgCount() - last.redeliveredMsgCount(), 0);
+          rate = redelivered * 1000.0 / (now - polled);
+        }
+        updated.put(
+            queue.queueName(),
+            new AemQueueMetrics(
+                queue.queueName(),
+                queue.spooledMsgCount(),
+                queue.msgSpoolUsage(),
+                queue.bindCount(),
+                queue.redeliveredMsgCount(),
+                rate));
+      }
+      this.metrics = Map.copyOf(updated);
+      this.polled = now;
+      logger.debug("Polled the queue metrics: {}", updated.values());
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to poll the monitoring data of the queues {}.", queues, e);
+    }
+  }
+
+  /**
+   * Returns the latest metrics of the queues.
+   *
+   * @return the metrics by queue name
+   */
+  Map<String, AemQueueMetrics> getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the number of messages spooled on all queues, which is the lag of their consumers.
+   *
+   * @return the number of messages spooled
+   */
+  long getLag() {
+    return metrics.values().stream().mapToLong(AemQueueMetrics::spooledMsgCount).sum();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (poller != null) {
+      poller.shutdownNow();
+      poller = null;
+    }
+  }
+}
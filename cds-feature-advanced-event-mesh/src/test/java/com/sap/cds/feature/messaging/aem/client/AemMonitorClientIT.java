@@ -0,0 +1,73 @@
+package com.sap.cds.feature.messaging.aem.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+import com.sap.cloud.sdk.cloudplatform.connectivity.DefaultHttpDestination;
+import com.sap.cloud.sdk.cloudplatform.connectivity.HttpDestination;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.MediaType;
+import org.mockserver.verify.VerificationTimes;
+
+class AemMonitorClientIT {
+
+    private static final String QUEUES_PATH = "/SEMP/v2/monitor/msgVpns/test-vpn/queues";
+
+    private ClientAndServer mockServer;
+    private AemMonitorClient client;
+
+    @BeforeEach
+    void setUp() {
+        mockServer = ClientAndServer.startClientAndServer(0);
+        HttpDestination destination = DefaultHttpDestination
+                .builder("http://localhost:" + mockServer.getPort())
+                .build();
+        client = new AemMonitorClient(destination, "test-vpn");
+    }
+
+    @AfterEach
+    void tearDown() {
+        mockServer.stop();
+    }
+
+    @Test
+    void getQueueMetrics_requests_queues_by_name_with_selected_fields() throws IOException {
+        mockServer.when(request().withMethod("GET").withPath(QUEUES_PATH + "/my%2Fqueue")
+                        .withQueryStringParameter("select",
+                                "queueName,spooledMsgCount,msgSpoolUsage,bindCount,redeliveredMsgCount"))
+                .respond(response().withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withBody("""
+                                {"data": {"queueName": "my/queue", "spooledMsgCount": 42, "msgSpoolUsage": 4096,
+                                  "bindCount": 2, "redeliveredMsgCount": 3},
+                                 "meta": {"responseCode": 200}}
+                                """));
+
+        Map<String, AemQueueMetrics> metrics = client.getQueueMetrics(Set.of("my/queue"));
+
+        assertEquals(Map.of("my/queue", new AemQueueMetrics("my/queue", 42, 4096, 2, 3, 0)), metrics);
+        mockServer.verify(request().withPath(QUEUES_PATH), VerificationTimes.never());
+    }
+
+    @Test
+    void getQueueMetrics_skips_queues_not_found() throws IOException {
+        mockServer.when(request().withMethod("GET").withPath(QUEUES_PATH + "/a"))
+                .respond(response().withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withBody("{\"data\": {\"queueName\": \"a\", \"spooledMsgCount\": 1}}"));
+        mockServer.when(request().withMethod("GET").withPath(QUEUES_PATH + "/b"))
+                .respond(response().withStatusCode(404));
+
+        Map<String, AemQueueMetrics> metrics = client.getQueueMetrics(Set.of("a", "b"));
+
+        assertEquals(1, metrics.get("a").spooledMsgCount());
+        assertFalse(metrics.containsKey("b"));
+    }
+}
@@ -75,6 +75,18 @@ class RestClientIT {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void getRequest_returns_empty_object_when_body_is_blank() throws IOException {
+        mockServer.when(request().withMethod("GET").withPath("/blank"))
+                .respond(response().withStatusCode(200)
+                        .withContentType(MediaType.APPLICATION_JSON)
+                        .withBody(" \n"));
+
+        JsonNode result = client.getRequest("/blank");
+
+        assertTrue(result.isEmpty());
+    }
+
     @Test
     void getRequest_throws_io_exception_on_non_json_content_type() {
         mockServer.when(request().withMethod("GET").withPath("/text"))
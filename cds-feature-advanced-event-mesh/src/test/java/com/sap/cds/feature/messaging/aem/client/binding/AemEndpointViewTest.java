@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 import com.sap.cloud.environment.servicebinding.api.ServiceBinding;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -64,6 +65,39 @@ public class AemEndpointViewTest {
     assertFalse(amqpUri.isPresent());
   }
 
+  @Test
+  void testGetAmqpUris_CommaSeparated() {
+    Map<String, Object> credentials =
+        Map.of(
+            "endpoints",
+            Map.of(
+                "advanced-event-mesh",
+                Map.of("amqp_uri", "amqps://primary.example.com, amqps://dr.example.com")));
+    when(serviceBinding.getCredentials()).thenReturn(credentials);
+
+    assertEquals(
+        List.of("amqps://primary.example.com", "amqps://dr.example.com"),
+        endpointView.getAmqpUris());
+    assertEquals("amqps://primary.example.com", endpointView.getAmqpUri().get());
+  }
+
+  @Test
+  void testGetAmqpUris_List() {
+    Map<String, Object> credentials =
+        Map.of(
+            "endpoints",
+            Map.of(
+                "advanced-event-mesh",
+                Map.of(
+                    "amqp_uri",
+                    List.of("amqps://primary.example.com", "amqps://dr.example.com"))));
+    when(serviceBinding.getCredentials()).thenReturn(credentials);
+
+    assertEquals(
+        List.of("amqps://primary.example.com", "amqps://dr.example.com"),
+        endpointView.getAmqpUris());
+  }
+
   @Test
   void testGetVpn() {
     Map<String, Object> credentials = Map.of("vpn", "test-vpn");
@@ -0,0 +1,102 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.TextMessage;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemBatchReceiverTest {
+
+  @Mock private MessageConsumer consumer;
+  @Mock private TextMessage first;
+  @Mock private TextMessage second;
+  @Mock private TextMessage third;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private AemBatchReceiver receiver(MessageListener listener) {
+    return new AemBatchReceiver(consumer, listener, 2, Duration.ofMillis(100));
+  }
+
+  private static void acknowledge(Message message) {
+    try {
+      message.acknowledge();
+    } catch (JMSException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void receiveBatch_stops_at_batch_size() throws JMSException {
+    when(consumer.receive(anyLong())).thenReturn(first, second, third);
+
+    List<Message> batch = receiver(AemBatchReceiverTest::acknowledge).receiveBatch();
+
+    assertEquals(List.of(first, second), batch);
+  }
+
+  @Test
+  void receiveBatch_stops_when_no_further_message_arrives() throws JMSException {
+    when(consumer.receive(anyLong())).thenReturn(first, (Message) null);
+
+    List<Message> batch = receiver(AemBatchReceiverTest::acknowledge).receiveBatch();
+
+    assertEquals(List.of(first), batch);
+  }
+
+  @Test
+  void process_acknowledges_each_message() throws JMSException {
+    receiver(AemBatchReceiverTest::acknowledge).process(List.of(first, second));
+
+    verify(first).acknowledge();
+    verify(second).acknowledge();
+    verify(first, never()).setIntProperty(anyString(), anyInt());
+  }
+
+  @Test
+  void process_redelivers_only_the_failed_message() throws JMSException {
+    MessageListener listener =
+        message -> {
+          if (AemMessages.unwrap(message) == first) {
+            throw new IllegalStateException("handler failed");
+          }
+          acknowledge(message);
+        };
+
+    receiver(listener).process(List.of(first, second));
+
+    InOrder order = inOrder(first);
+    order.verify(first).setIntProperty("JMS_AMQP_ACK_TYPE", 4);
+    order.verify(first).acknowledge();
+    verify(second).acknowledge();
+    verify(second, never()).setIntProperty(anyString(), anyInt());
+  }
+
+  @Test
+  void process_redelivers_message_that_is_not_acknowledged() throws JMSException {
+    receiver(message -> {}).process(List.of(first));
+
+    verify(first).setIntProperty("JMS_AMQP_ACK_TYPE", 4);
+    verify(first).acknowledge();
+  }
+}
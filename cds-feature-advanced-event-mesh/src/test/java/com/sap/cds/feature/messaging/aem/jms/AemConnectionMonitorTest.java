@@ -0,0 +1,141 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsConnectionListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class AemConnectionMonitorTest {
+
+  private static final URI BROKER = URI.create("amqps://broker.example.com:5671");
+  private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+  private AemConnectionMonitor monitor;
+  private JmsConnection connection;
+  private JmsConnectionListener listener;
+
+  @BeforeEach
+  void setUp() {
+    connection = mock(JmsConnection.class);
+    monitor = new AemConnectionMonitor();
+    monitor.register(connection);
+
+    ArgumentCaptor<JmsConnectionListener> captor =
+        ArgumentCaptor.forClass(JmsConnectionListener.class);
+    verify(connection).addConnectionListener(captor.capture());
+    listener = captor.getValue();
+  }
+
+  @Test
+  void recordPublish_counts_messages_published_while_interrupted() {
+    monitor.recordPublish(1);
+    listener.onConnectionInterrupted(BROKER);
+    monitor.recordPublish(3);
+
+    assertTrue(monitor.isInterrupted());
+    assertEquals(3, monitor.getOutagePublishes());
+
+    listener.onConnectionRestored(BROKER);
+    monitor.recordPublish(1);
+
+    assertFalse(monitor.isInterrupted());
+    assertEquals(3, monitor.getOutagePublishes());
+  }
+
+  @Test
+  void onConnectionRestored_measures_reconnect() throws InterruptedException {
+    listener.onConnectionInterrupted(BROKER);
+    Thread.sleep(20);
+    listener.onConnectionRestored(BROKER);
+
+    assertEquals(1, monitor.getInterruptions());
+    assertTrue(monitor.getLastReconnectMillis() >= 20);
+    assertEquals(monitor.getLastReconnectMillis(), monitor.getMaxReconnectMillis());
+  }
+
+  @Test
+  void onConnectionFailure_ends_interruption() {
+    listener.onConnectionInterrupted(BROKER);
+    assertEquals(AemConnectionMonitor.Health.RECONNECTING, monitor.getHealth());
+
+    listener.onConnectionFailure(new IllegalStateException("gone"));
+
+    assertFalse(monitor.isInterrupted());
+    assertEquals(1, monitor.getFailures());
+    assertEquals(AemConnectionMonitor.Health.FAILED, monitor.getHealth());
+  }
+
+  @Test
+  void onConnectionRestored_ends_failure() {
+    listener.onConnectionFailure(new IllegalStateException("gone"));
+    assertEquals(AemConnectionMonitor.Health.FAILED, monitor.getHealth());
+
+    listener.onConnectionRestored(BROKER);
+
+    assertEquals(AemConnectionMonitor.Health.HEALTHY, monitor.getHealth());
+    assertEquals(1, monitor.getFailures());
+  }
+
+  @Test
+  void unregister_removes_listener_and_ends_interruption() {
+    listener.onConnectionInterrupted(BROKER);
+
+    monitor.unregister(connection);
+
+    verify(connection).removeConnectionListener(listener);
+    assertFalse(monitor.isInterrupted());
+    assertEquals(AemConnectionMonitor.Health.HEALTHY, monitor.getHealth());
+  }
+
+  @Test
+  void check_abandons_probe_after_timeout() throws JMSException {
+    Connection physical = mock(Connection.class);
+    when(physical.createSession(false, Session.AUTO_ACKNOWLEDGE))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(10_000);
+              return mock(Session.class);
+            });
+
+    long started = System.nanoTime();
+    monitor.check(List.of(physical), Duration.ofMillis(50));
+
+    assertTrue(System.nanoTime() - started < Duration.ofSeconds(5).toNanos());
+    assertEquals(AemConnectionMonitor.Health.STALLED, monitor.getHealth());
+    monitor.close();
+  }
+
+  @Test
+  void check_reports_connection_not_answering_probe_as_stalled() throws JMSException {
+    Connection physical = mock(Connection.class);
+    when(physical.createSession(false, Session.AUTO_ACKNOWLEDGE))
+        .thenThrow(new JMSException("Request timed out"))
+        .thenThrow(new JMSException("Request timed out"))
+        .thenReturn(mock(Session.class));
+
+    assertEquals(List.of(physical), monitor.check(List.of(physical), TIMEOUT));
+    // a connection is handed to the stall handler once, until it answers again
+    assertEquals(List.of(), monitor.check(List.of(physical), TIMEOUT));
+
+    assertEquals(AemConnectionMonitor.Health.STALLED, monitor.getHealth());
+    assertEquals(1, monitor.getStalls());
+
+    assertEquals(List.of(), monitor.check(List.of(physical), TIMEOUT));
+
+    assertEquals(AemConnectionMonitor.Health.HEALTHY, monitor.getHealth());
+  }
+}
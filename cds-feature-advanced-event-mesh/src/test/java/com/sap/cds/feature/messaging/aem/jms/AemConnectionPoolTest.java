@@ -0,0 +1,241 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemConnectionPoolTest {
+
+  @Mock private ConnectionFactory factory;
+  @Mock private Connection physical;
+
+  private AemConnectionPool pool;
+
+  @BeforeEach
+  void setUp() throws JMSException {
+    MockitoAnnotations.openMocks(this);
+    when(factory.createConnection()).thenReturn(physical);
+    when(physical.createSession(false, Session.AUTO_ACKNOWLEDGE))
+        .thenAnswer(invocation -> mock(Session.class));
+
+    pool = new AemConnectionPool(factory, 1, Duration.ofMillis(10), Duration.ZERO);
+  }
+
+  @Test
+  void createConnection_shares_physical_connection_until_last_handle_is_closed()
+      throws JMSException {
+    Connection first = pool.newConnectionFactory().createConnection();
+    Connection second = pool.newConnectionFactory().createConnection();
+
+    first.start();
+    second.start();
+    first.stop();
+    first.close();
+
+    verify(factory, times(1)).createConnection();
+    verify(physical, times(1)).start();
+    verify(physical, never()).stop();
+    verify(physical, never()).close();
+
+    second.close();
+
+    verify(physical).stop();
+    verify(physical).close();
+    assertEquals(0, pool.getConnections().size());
+  }
+
+  @Test
+  void createConnection_reuses_slot_of_closed_handle() throws JMSException {
+    ConnectionFactory reconnecting = pool.newConnectionFactory();
+    Connection first = reconnecting.createConnection();
+    Connection other = pool.newConnectionFactory().createConnection();
+
+    first.close();
+    reconnecting.createConnection();
+
+    verify(factory, times(1)).createConnection();
+    assertEquals(1, pool.getConnections().size());
+    other.close();
+  }
+
+  @Test
+  void createSession_is_limited_by_max_sessions() throws JMSException {
+    Connection connection = pool.newConnectionFactory().createConnection();
+
+    Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    assertThrows(
+        JMSException.class, () -> connection.createSession(false, Session.AUTO_ACKNOWLEDGE));
+
+    session.close();
+    session.close();
+
+    assertEquals(0, pool.getSessionsInUse());
+    connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    assertEquals(1, pool.getSessionsInUse());
+  }
+
+  @Test
+  void createConsumer_of_dispatching_queue_takes_one_session_permit() throws JMSException {
+    Queue queue = mock(Queue.class);
+    Session consumerSession = mock(Session.class);
+    when(queue.getQueueName()).thenReturn("my/queue");
+    when(physical.createSession(AemSession.INDIVIDUAL_ACKNOWLEDGE)).thenReturn(consumerSession);
+    when(consumerSession.createConsumer(queue, null, false))
+        .thenReturn(mock(MessageConsumer.class));
+    Connection connection = pool.newConnectionFactory().createConnection();
+    AemSession session =
+        new AemSession(
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE),
+            connection,
+            Map.of("my/queue", new AemConsumerOptions().setConcurrency(4)));
+
+    session.createConsumer(queue);
+
+    verify(consumerSession).createConsumer(queue, null, false);
+    assertEquals(1, pool.getSessionsInUse());
+    session.close();
+    assertEquals(0, pool.getSessionsInUse());
+  }
+
+  @Test
+  void close_closes_the_sessions_of_the_handle() throws JMSException {
+    Session physicalSession = mock(Session.class);
+    when(physical.createSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(physicalSession);
+    Connection first = pool.newConnectionFactory().createConnection();
+    Connection second = pool.newConnectionFactory().createConnection();
+    first.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+    first.close();
+
+    verify(physicalSession).close();
+    verify(physical, never()).close();
+    assertEquals(0, pool.getSessionsInUse());
+    assertThrows(JMSException.class, () -> first.createSession(false, Session.AUTO_ACKNOWLEDGE));
+    second.createSession(false, Session.AUTO_ACKNOWLEDGE);
+  }
+
+  @Test
+  void stop_holds_back_the_messages_of_the_handle_on_a_shared_connection() throws Exception {
+    Queue queue = mock(Queue.class);
+    Session physicalSession = mock(Session.class);
+    MessageConsumer physicalConsumer = mock(MessageConsumer.class);
+    MessageListener listener = mock(MessageListener.class);
+    Message message = mock(Message.class);
+    when(physical.createSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(physicalSession);
+    when(physicalSession.createConsumer(queue)).thenReturn(physicalConsumer);
+    Connection first = pool.newConnectionFactory().createConnection();
+    Connection second = pool.newConnectionFactory().createConnection();
+    first.start();
+    second.start();
+    first
+        .createSession(false, Session.AUTO_ACKNOWLEDGE)
+        .createConsumer(queue)
+        .setMessageListener(listener);
+    ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass(MessageListener.class);
+    verify(physicalConsumer).setMessageListener(captor.capture());
+
+    first.stop();
+    CompletableFuture<Void> delivery =
+        CompletableFuture.runAsync(() -> captor.getValue().onMessage(message));
+
+    verify(physical, never()).stop();
+    Thread.sleep(50);
+    assertFalse(delivery.isDone());
+    verify(listener, never()).onMessage(message);
+
+    first.start();
+
+    delivery.get();
+    verify(listener, timeout(1000)).onMessage(message);
+  }
+
+  @Test
+  void createConnection_replaces_failed_connection_still_held_by_another_service()
+      throws JMSException {
+    Connection replacement = mock(Connection.class);
+    when(factory.createConnection()).thenReturn(physical, replacement);
+    ConnectionFactory reconnecting = pool.newConnectionFactory();
+    Connection failed = reconnecting.createConnection();
+    Connection other = pool.newConnectionFactory().createConnection();
+    ArgumentCaptor<ExceptionListener> captor = ArgumentCaptor.forClass(ExceptionListener.class);
+    verify(physical).setExceptionListener(captor.capture());
+
+    captor.getValue().onException(new JMSException("Connection failed"));
+    failed.close();
+    reconnecting.createConnection();
+
+    verify(factory, times(2)).createConnection();
+    assertEquals(List.of(replacement), pool.getConnections());
+    verify(physical, never()).close();
+
+    other.close();
+
+    verify(physical).close();
+    verify(replacement, never()).close();
+  }
+
+  @Test
+  void onStalled_replaces_stalled_connection_and_notifies_handles() throws JMSException {
+    Connection replacement = mock(Connection.class);
+    when(factory.createConnection()).thenReturn(physical, replacement);
+    ConnectionFactory reconnecting = pool.newConnectionFactory();
+    Connection stalled = reconnecting.createConnection();
+    ExceptionListener listener = mock(ExceptionListener.class);
+    stalled.setExceptionListener(listener);
+
+    pool.onStalled(physical);
+
+    verify(listener).onException(any(JMSException.class));
+    assertEquals(List.of(), pool.getConnections());
+
+    stalled.close();
+    reconnecting.createConnection();
+
+    verify(physical).close();
+    assertEquals(List.of(replacement), pool.getConnections());
+  }
+
+  @Test
+  void exceptions_are_passed_to_listeners_of_all_handles() throws JMSException {
+    Connection first = pool.newConnectionFactory().createConnection();
+    Connection second = pool.newConnectionFactory().createConnection();
+    ExceptionListener firstListener = mock(ExceptionListener.class);
+    ExceptionListener secondListener = mock(ExceptionListener.class);
+    first.setExceptionListener(firstListener);
+    second.setExceptionListener(secondListener);
+
+    ArgumentCaptor<ExceptionListener> captor = ArgumentCaptor.forClass(ExceptionListener.class);
+    verify(physical).setExceptionListener(captor.capture());
+    JMSException exception = new JMSException("Connection lost");
+    captor.getValue().onException(exception);
+
+    verify(firstListener).onException(exception);
+    verify(secondListener).onException(exception);
+  }
+}
@@ -0,0 +1,96 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.JMSException;
+import jakarta.jms.Session;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemConnectionTest {
+
+  @Mock private ConnectionFactory connectionFactory;
+  @Mock private Connection primary;
+  @Mock private Connection secondary;
+  @Mock private Session primarySession;
+  @Mock private Session secondarySession;
+  @Mock private ExceptionListener exceptionListener;
+
+  private AemConnection connection;
+
+  @BeforeEach
+  void setUp() throws JMSException {
+    MockitoAnnotations.openMocks(this);
+    when(connectionFactory.createConnection()).thenReturn(secondary);
+    when(primary.createSession(false, Session.CLIENT_ACKNOWLEDGE)).thenReturn(primarySession);
+    when(secondary.createSession(false, Session.CLIENT_ACKNOWLEDGE)).thenReturn(secondarySession);
+
+    connection = new AemConnection(primary, connectionFactory);
+  }
+
+  @Test
+  void createSession_uses_primary_connection_by_default() throws JMSException {
+    assertSame(primarySession, connection.createSession(false, Session.CLIENT_ACKNOWLEDGE));
+    assertSame(primarySession, connection.createSession(false, Session.CLIENT_ACKNOWLEDGE));
+  }
+
+  @Test
+  void open_starts_additional_connections_of_started_connection() throws JMSException {
+    connection.setExceptionListener(exceptionListener);
+    connection.start();
+
+    connection.open(2);
+    connection.open(2);
+
+    assertEquals(2, connection.getConnections().size());
+    verify(secondary).setExceptionListener(exceptionListener);
+    verify(secondary).start();
+  }
+
+  @Test
+  void open_does_not_start_additional_connections_of_stopped_connection() throws JMSException {
+    connection.open(2);
+
+    verify(secondary, never()).start();
+  }
+
+  @Test
+  void createSession_distributes_sessions_round_robin() throws JMSException {
+    connection.open(2);
+
+    assertSame(primarySession, connection.createSession(false, Session.CLIENT_ACKNOWLEDGE));
+    assertSame(secondarySession, connection.createSession(false, Session.CLIENT_ACKNOWLEDGE));
+    assertSame(primarySession, connection.createSession(false, Session.CLIENT_ACKNOWLEDGE));
+  }
+
+  @Test
+  void drain_stops_delivery_on_all_connections() throws JMSException {
+    connection.open(2);
+
+    assertTrue(connection.drain(Duration.ofSeconds(5)));
+
+    verify(primary).stop();
+    verify(secondary).stop();
+  }
+
+  @Test
+  void close_closes_all_connections() throws JMSException {
+    connection.open(2);
+
+    connection.close();
+
+    verify(primary).close();
+    verify(secondary).close();
+  }
+}
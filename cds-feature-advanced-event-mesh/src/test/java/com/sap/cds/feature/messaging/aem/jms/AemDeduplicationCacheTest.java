@@ -0,0 +1,87 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AemDeduplicationCacheTest {
+
+  @Test
+  void contains_returns_true_for_added_id_until_expired() {
+    AemDeduplicationCache cache = new AemDeduplicationCache(10, Duration.ofMillis(100));
+    cache.add("id-1", 0);
+
+    assertTrue(cache.contains("id-1", 50));
+    assertFalse(cache.contains("id-1", 100));
+    assertFalse(cache.contains("id-2", 50));
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void add_evicts_oldest_id_when_full() {
+    AemDeduplicationCache cache = new AemDeduplicationCache(100, Duration.ofMinutes(1));
+    for (int i = 0; i < 1000; i++) {
+      cache.add("id-" + i, 0);
+    }
+
+    assertEquals(100, cache.size());
+    assertFalse(cache.contains("id-899", 0));
+    for (int i = 900; i < 1000; i++) {
+      assertTrue(cache.contains("id-" + i, 0), "id-" + i);
+    }
+  }
+
+  @Test
+  void listener_acknowledges_duplicate_without_processing() throws JMSException {
+    AemDeduplicationCache cache = new AemDeduplicationCache(10, Duration.ofMinutes(1));
+    MessageListener listener = mock(MessageListener.class);
+    Message message = mock(Message.class);
+    when(message.getJMSMessageID()).thenReturn("ID:1");
+    MessageListener acknowledging =
+        received -> {
+          listener.onMessage(received);
+          try {
+            received.acknowledge();
+          } catch (JMSException e) {
+            throw new IllegalStateException(e);
+          }
+        };
+    AemDeduplicatingListener deduplicating =
+        new AemDeduplicatingListener(acknowledging, cache, null);
+
+    deduplicating.onMessage(message);
+    deduplicating.onMessage(message);
+
+    verify(listener, times(1)).onMessage(any());
+    verify(message, times(2)).acknowledge();
+  }
+
+  @Test
+  void listener_processes_message_again_if_not_acknowledged() throws JMSException {
+    AemDeduplicationCache cache = new AemDeduplicationCache(10, Duration.ofMinutes(1));
+    MessageListener listener = mock(MessageListener.class);
+    Message message = mock(Message.class);
+    when(message.getStringProperty("cloudEvents_id")).thenReturn("event-1");
+    AemDeduplicatingListener deduplicating =
+        new AemDeduplicatingListener(listener, cache, "cloudEvents_id");
+
+    deduplicating.onMessage(message);
+    deduplicating.onMessage(message);
+
+    verify(listener, times(2)).onMessage(any());
+    verify(message, never()).acknowledge();
+  }
+}
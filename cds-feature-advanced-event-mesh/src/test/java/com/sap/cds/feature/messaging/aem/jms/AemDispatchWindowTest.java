@@ -0,0 +1,53 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AemDispatchWindowTest {
+
+  @Test
+  void adaptive_window_grows_while_handlers_keep_up() {
+    AemDispatchWindow window = AemDispatchWindow.adaptive(2, 4);
+    assertEquals(2, window.getLimit());
+
+    for (int i = 0; i < 5; i++) {
+      window.acquire();
+      window.release(0, 1000);
+    }
+
+    assertEquals(4, window.getLimit());
+  }
+
+  @Test
+  void adaptive_window_shrinks_when_handlers_fall_behind() {
+    AemDispatchWindow window = AemDispatchWindow.adaptive(2, 100);
+    for (int i = 0; i < 50; i++) {
+      window.acquire();
+      window.release(0, 1000);
+    }
+    assertEquals(52, window.getLimit());
+
+    window.acquire();
+    window.release(5000, 1000);
+
+    assertEquals(46, window.getLimit());
+  }
+
+  @Test
+  void acquire_waits_for_room_in_window() throws Exception {
+    AemDispatchWindow window = AemDispatchWindow.fixed(1);
+    window.acquire();
+
+    CompletableFuture<Void> acquired = CompletableFuture.runAsync(window::acquire);
+    Thread.sleep(50);
+    assertFalse(acquired.isDone());
+
+    window.release(0, 0);
+    acquired.get(5, TimeUnit.SECONDS);
+    assertEquals(1, window.getInFlight());
+  }
+}
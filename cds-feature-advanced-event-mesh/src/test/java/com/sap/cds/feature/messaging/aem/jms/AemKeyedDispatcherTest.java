@@ -0,0 +1,189 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+class AemKeyedDispatcherTest {
+
+  private static TextMessage message(String key, String text) throws JMSException {
+    TextMessage message = mock(TextMessage.class);
+    when(message.getStringProperty("key")).thenReturn(key);
+    when(message.getText()).thenReturn(text);
+    return message;
+  }
+
+  @Test
+  void onMessage_keeps_order_of_messages_with_same_key() throws Exception {
+    List<String> processed = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(4);
+    try (AemKeyedDispatcher dispatcher =
+        new AemKeyedDispatcher(
+            message -> {
+              try {
+                processed.add(((TextMessage) message).getText());
+                message.acknowledge();
+              } catch (JMSException e) {
+                throw new IllegalStateException(e);
+              }
+              done.countDown();
+            },
+            "key",
+            4,
+            AemDispatchWindow.fixed(100))) {
+      dispatcher.onMessage(message("a", "a1"));
+      dispatcher.onMessage(message("b", "b1"));
+      dispatcher.onMessage(message("a", "a2"));
+      dispatcher.onMessage(message("a", "a3"));
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    List<String> a = processed.stream().filter(text -> text.startsWith("a")).toList();
+    assertEquals(List.of("a1", "a2", "a3"), a);
+  }
+
+  @Test
+  void onMessage_acknowledges_received_message() throws Exception {
+    TextMessage message = message("a", "a1");
+    try (AemKeyedDispatcher dispatcher =
+        new AemKeyedDispatcher(
+            received -> {
+              assertSame(message, AemMessages.unwrap(received));
+              try {
+                received.acknowledge();
+              } catch (JMSException e) {
+                throw new IllegalStateException(e);
+              }
+            },
+            "key",
+            2,
+            AemDispatchWindow.adaptive(2, 10))) {
+      dispatcher.onMessage(message);
+
+      verify(message, timeout(5000)).acknowledge();
+    }
+  }
+
+  @Test
+  void onMessage_limits_parallel_handlers_on_virtual_threads() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<String> processed = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(20);
+    try (AemKeyedDispatcher dispatcher =
+        new AemKeyedDispatcher(
+            message -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              try {
+                Thread.sleep(5);
+                processed.add(((TextMessage) message).getText());
+                message.acknowledge();
+              } catch (JMSException | InterruptedException e) {
+                throw new IllegalStateException(e);
+              } finally {
+                running.decrementAndGet();
+              }
+              done.countDown();
+            },
+            "key",
+            3,
+            AemDispatchWindow.fixed(100),
+            null,
+            true)) {
+      for (int i = 0; i < 20; i++) {
+        dispatcher.onMessage(message(i % 2 == 0 ? "a" : "b" + i, "m" + i));
+      }
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    assertTrue(maxRunning.get() <= 3);
+    List<String> a =
+        processed.stream().filter(text -> Integer.parseInt(text.substring(1)) % 2 == 0).toList();
+    assertEquals(List.of("m0", "m2", "m4", "m6", "m8", "m10", "m12", "m14", "m16", "m18"), a);
+  }
+
+  @Test
+  void drain_waits_for_dispatched_messages() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    TextMessage message = message("a", "a1");
+    AemKeyedDispatcher dispatcher =
+        new AemKeyedDispatcher(
+            received -> {
+              started.countDown();
+              try {
+                Thread.sleep(100);
+                received.acknowledge();
+              } catch (JMSException | InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            },
+            "key",
+            2,
+            AemDispatchWindow.fixed(10));
+    dispatcher.onMessage(message);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    assertTrue(dispatcher.drain(5000));
+    verify(message).acknowledge();
+  }
+
+  @Test
+  void onMessage_after_drain_releases_window_and_redelivers_message() throws Exception {
+    BytesMessage message = mock(BytesMessage.class);
+    when(message.getBodyLength()).thenReturn(100L);
+    AemDispatchWindow window = AemDispatchWindow.fixed(10);
+    AemPayloadBudget budget = new AemPayloadBudget(1000);
+    AemKeyedDispatcher dispatcher =
+        new AemKeyedDispatcher(
+            received -> {
+              throw new IllegalStateException("not processed");
+            },
+            "key",
+            2,
+            window,
+            budget,
+            false);
+    assertTrue(dispatcher.drain(5000));
+
+    dispatcher.onMessage(message);
+
+    assertEquals(0, window.getInFlight());
+    assertEquals(0, budget.getInFlight());
+    InOrder inOrder = inOrder(message);
+    inOrder.verify(message).setIntProperty("JMS_AMQP_ACK_TYPE", 4);
+    inOrder.verify(message).acknowledge();
+  }
+
+  @Test
+  void interceptAcknowledge_keeps_message_interfaces() throws JMSException {
+    TextMessage message = message("a", "text");
+    boolean[] acknowledged = new boolean[1];
+
+    Message wrapped = AemMessages.interceptAcknowledge(message, () -> acknowledged[0] = true);
+    wrapped.acknowledge();
+
+    assertTrue(wrapped instanceof TextMessage);
+    assertEquals("text", ((TextMessage) wrapped).getText());
+    assertTrue(acknowledged[0]);
+    assertSame(message, AemMessages.unwrap(wrapped));
+  }
+}
@@ -0,0 +1,307 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.TopicMessageEventContext;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemMessagePublisherTest {
+
+  @Mock private Connection connection;
+  @Mock private Session session;
+  @Mock private MessageProducer producer;
+  @Mock private Topic topic;
+  @Mock private TextMessage message;
+  @Mock private TopicMessageEventContext context;
+  @Mock private Session batchSession;
+  @Mock private MessageProducer batchProducer;
+
+  @BeforeEach
+  void setUp() throws JMSException {
+    MockitoAnnotations.openMocks(this);
+    when(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(session);
+    when(session.createProducer(isNull())).thenReturn(producer);
+    when(session.createTopic("topic://my/topic")).thenReturn(topic);
+    when(session.createTextMessage("{}")).thenReturn(message);
+    when(context.getData()).thenReturn("{}");
+  }
+
+  @Test
+  void publish_sends_asynchronously_on_one_session() throws JMSException {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 10, null);
+
+    publisher.publish("topic://my/topic", context);
+    publisher.publish("topic://my/topic", context);
+
+    verify(connection, times(1)).createSession(false, Session.AUTO_ACKNOWLEDGE);
+    verify(producer, times(2)).send(eq(topic), eq(message), any(CompletionListener.class));
+    assertEquals(2, publisher.getInFlight());
+  }
+
+  @Test
+  void completion_releases_the_window() throws JMSException {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 1, null);
+
+    publisher.publish("topic://my/topic", context);
+    completionListener().onCompletion(message);
+
+    assertEquals(0, publisher.getInFlight());
+    assertTrue(publisher.flush(Duration.ofMillis(10)));
+  }
+
+  @Test
+  void flush_times_out_when_messages_are_not_settled() {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 2, null);
+
+    publisher.publish("topic://my/topic", context);
+
+    assertFalse(publisher.flush(Duration.ofMillis(10)));
+  }
+
+  @Test
+  void asynchronous_failure_is_reported_with_the_failed_message() throws JMSException {
+    AemMessagePublisher.FailureHandler handler = mock(AemMessagePublisher.FailureHandler.class);
+    AemMessagePublisher publisher =
+        new AemMessagePublisher(connection, 10, null, Duration.ofSeconds(1), handler);
+    JMSException rejected = new JMSException("rejected");
+
+    publisher.publish("topic://my/topic", context);
+    completionListener().onException(message, rejected);
+
+    verify(handler).onFailure("topic://my/topic", context, rejected);
+    assertEquals(0, publisher.getInFlight());
+    // later publishes are not affected by the failure
+    publisher.publish("topic://my/topic", context);
+  }
+
+  @Test
+  void asynchronous_failure_fails_the_settlement_of_the_message() throws JMSException {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 10, null);
+    JMSException rejected = new JMSException("rejected");
+
+    CompletableFuture<Void> settlement = publisher.publish("topic://my/topic", context);
+    assertFalse(settlement.isDone());
+    completionListener().onException(message, rejected);
+
+    ExecutionException failure = assertThrows(ExecutionException.class, settlement::get);
+    assertTrue(failure.getCause() instanceof ServiceException);
+    assertSame(rejected, failure.getCause().getCause());
+  }
+
+  @Test
+  void asynchronous_completion_completes_the_settlement_of_the_message() throws Exception {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 10, null);
+
+    CompletableFuture<Void> settlement = publisher.publish("topic://my/topic", context);
+    completionListener().onCompletion(message);
+
+    assertTrue(settlement.isDone());
+    assertFalse(settlement.isCompletedExceptionally());
+  }
+
+  @Test
+  void createMessage_copies_the_headers_to_properties() throws JMSException {
+    when(context.getHeadersMap())
+        .thenReturn(Map.of("tenant", "t1", "priority", 5, "tags", List.of("a")));
+
+    AemMessagePublisher.createMessage(session, context);
+
+    verify(message).setObjectProperty("tenant", "t1");
+    verify(message).setObjectProperty("priority", 5);
+    verify(message).setStringProperty("tags", "[a]");
+  }
+
+  @Test
+  void publish_fails_when_the_window_has_no_space_within_the_send_timeout() {
+    AemMessagePublisher publisher =
+        new AemMessagePublisher(connection, 1, null, Duration.ofMillis(10), null);
+    publisher.publish("topic://my/topic", context);
+
+    assertThrows(ServiceException.class, () -> publisher.publish("topic://my/topic", context));
+    assertEquals(1, publisher.getInFlight());
+  }
+
+  @Test
+  void synchronous_failure_releases_the_window() throws JMSException {
+    doThrow(new JMSException("closed"))
+        .when(producer)
+        .send(eq(topic), eq(message), any(CompletionListener.class));
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 1, null);
+
+    assertThrows(ServiceException.class, () -> publisher.publish("topic://my/topic", context));
+    assertEquals(0, publisher.getInFlight());
+  }
+
+  @Test
+  void close_closes_the_session() throws JMSException {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 1, null);
+    publisher.publish("topic://my/topic", context);
+
+    publisher.close();
+
+    verify(session).close();
+  }
+
+  @Test
+  void constructor_rejects_negative_window() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new AemMessagePublisher(connection, -1, null));
+  }
+
+  @Test
+  void publish_sends_synchronously_without_window() throws JMSException {
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, null);
+
+    publisher.publish("topic://my/topic", context);
+
+    verify(producer).send(topic, message);
+    assertEquals(0, publisher.getInFlight());
+    assertTrue(publisher.flush(Duration.ofMillis(10)));
+  }
+
+  @Test
+  void publish_uses_cached_producer_of_topic() throws JMSException {
+    MessageProducer topicProducer = mock(MessageProducer.class);
+    when(session.createProducer(topic)).thenReturn(topicProducer);
+    AemProducerCache cache = new AemProducerCache(connection, 10, Duration.ZERO);
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, cache);
+
+    publisher.publish("topic://my/topic", context);
+    publisher.publish("topic://my/topic", context);
+
+    verify(topicProducer, times(2)).send(message);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  void publishBatch_pipelined_waits_for_all_settlements() throws JMSException {
+    mockBatchSession(false, Session.AUTO_ACKNOWLEDGE);
+    doAnswer(
+            invocation -> {
+              invocation.getArgument(1, CompletionListener.class).onCompletion(message);
+              return null;
+            })
+        .when(batchProducer)
+        .send(eq(message), any(CompletionListener.class));
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, null);
+
+    publisher.publishBatch(
+        List.of("topic://my/topic", "topic://my/topic"),
+        List.of(context, context),
+        false,
+        Duration.ofSeconds(1));
+
+    verify(batchSession, times(1)).createProducer(topic);
+    verify(batchProducer, times(2)).send(eq(message), any(CompletionListener.class));
+    verify(batchSession).close();
+  }
+
+  @Test
+  void publishBatch_pipelined_fails_when_a_message_is_rejected() throws JMSException {
+    mockBatchSession(false, Session.AUTO_ACKNOWLEDGE);
+    doAnswer(
+            invocation -> {
+              invocation
+                  .getArgument(1, CompletionListener.class)
+                  .onException(message, new JMSException("rejected"));
+              return null;
+            })
+        .when(batchProducer)
+        .send(eq(message), any(CompletionListener.class));
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, null);
+
+    assertThrows(
+        ServiceException.class,
+        () ->
+            publisher.publishBatch(
+                List.of("topic://my/topic"), List.of(context), false, Duration.ofSeconds(1)));
+    verify(batchSession).close();
+  }
+
+  @Test
+  void publishBatch_pipelined_times_out_without_settlements() throws JMSException {
+    mockBatchSession(false, Session.AUTO_ACKNOWLEDGE);
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, null);
+
+    assertThrows(
+        ServiceException.class,
+        () ->
+            publisher.publishBatch(
+                List.of("topic://my/topic"), List.of(context), false, Duration.ofMillis(10)));
+  }
+
+  @Test
+  void publishBatch_transacted_commits_once() throws JMSException {
+    mockBatchSession(true, Session.SESSION_TRANSACTED);
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, null);
+
+    publisher.publishBatch(
+        List.of("topic://my/topic", "topic://my/topic"),
+        List.of(context, context),
+        true,
+        Duration.ofSeconds(1));
+
+    verify(batchProducer, times(2)).send(message);
+    verify(batchSession, times(1)).commit();
+    verify(batchSession).close();
+  }
+
+  @Test
+  void publishBatch_transacted_rolls_back_on_failure() throws JMSException {
+    mockBatchSession(true, Session.SESSION_TRANSACTED);
+    doThrow(new JMSException("commit failed")).when(batchSession).commit();
+    AemMessagePublisher publisher = new AemMessagePublisher(connection, 0, null);
+
+    assertThrows(
+        ServiceException.class,
+        () ->
+            publisher.publishBatch(
+                List.of("topic://my/topic"), List.of(context), true, Duration.ofSeconds(1)));
+    verify(batchSession).rollback();
+    verify(batchSession).close();
+  }
+
+  private void mockBatchSession(boolean transacted, int acknowledgeMode) throws JMSException {
+    when(connection.createSession(transacted, acknowledgeMode)).thenReturn(batchSession);
+    when(batchSession.createTopic("topic://my/topic")).thenReturn(topic);
+    when(batchSession.createProducer(topic)).thenReturn(batchProducer);
+    when(batchSession.createTextMessage("{}")).thenReturn(message);
+  }
+
+  private CompletionListener completionListener() throws JMSException {
+    ArgumentCaptor<CompletionListener> captor = ArgumentCaptor.forClass(CompletionListener.class);
+    verify(producer).send(eq(topic), eq(message), captor.capture());
+    return captor.getValue();
+  }
+}
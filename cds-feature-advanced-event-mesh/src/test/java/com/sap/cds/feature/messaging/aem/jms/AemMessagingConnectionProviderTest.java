@@ -6,6 +6,10 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sap.cds.services.ServiceException;
@@ -13,8 +17,11 @@ import com.sap.cloud.environment.servicebinding.api.ServiceBinding;
 import com.sap.cloud.sdk.cloudplatform.connectivity.Destination;
 import com.sap.cloud.sdk.cloudplatform.connectivity.Header;
 import com.sap.cloud.sdk.cloudplatform.connectivity.HttpDestination;
+import io.vavr.control.Option;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.apache.qpid.jms.JmsConnectionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -91,6 +98,168 @@ class AemMessagingConnectionProviderTest {
     assertFalse(token.isPresent());
   }
 
+  // --- getConnectionUri ---
+
+  @Test
+  void getConnectionUri_wraps_endpoints_in_failover_uri() {
+    String uri =
+        AemMessagingConnectionProvider.getConnectionUri(
+            List.of("amqps://primary.example.com:5671"),
+            Map.of("failoverUris", "amqps://dr.example.com:5671", "maxReconnectAttempts", "20"),
+            0.5);
+
+    assertEquals(
+        "failover:(amqps://primary.example.com:5671,amqps://dr.example.com:5671)"
+            + "?failover.nested.amqp.saslMechanisms=XOAUTH2"
+            + "&failover.nested.amqp.idleTimeout=20000"
+            + "&failover.initialReconnectDelay=1000"
+            + "&failover.reconnectDelay=1000"
+            + "&failover.maxReconnectDelay=30000"
+            + "&failover.useReconnectBackOff=true"
+            + "&failover.reconnectBackOffMultiplier=2.0"
+            + "&failover.maxReconnectAttempts=20"
+            + "&failover.randomize=false",
+        uri);
+  }
+
+  @Test
+  void createJmsConnectionFactory_uses_failover_uri_of_all_endpoints() {
+    when(destination.get("vpn", String.class)).thenReturn(Option.of("my-vpn"));
+    AemMessagingConnectionProvider failoverProvider =
+        new AemMessagingConnectionProvider(
+            binding,
+            destination,
+            List.of("amqps://primary.example.com:5671", "amqps://dr.example.com:5671"));
+
+    JmsConnectionFactory factory = failoverProvider.createJmsConnectionFactory(Map.of());
+
+    assertTrue(
+        factory
+            .getRemoteURI()
+            .startsWith(
+                "failover:(amqps://primary.example.com:5671,amqps://dr.example.com:5671)?"),
+        factory.getRemoteURI());
+    assertEquals(AemMessagePublisher.DEFAULT_SEND_TIMEOUT.toMillis(), factory.getSendTimeout());
+  }
+
+  @Test
+  void getConnectionUri_scales_delays_with_jitter() {
+    Map<String, String> properties =
+        Map.of("reconnectDelay", "200", "reconnectDelayMax", "10000", "reconnectJitter", "0.5");
+
+    String lowest =
+        AemMessagingConnectionProvider.getConnectionUri(
+            List.of("amqps://broker.example.com"), properties, 0);
+    String highest =
+        AemMessagingConnectionProvider.getConnectionUri(
+            List.of("amqps://broker.example.com"), properties, 1);
+
+    assertTrue(lowest.contains("&failover.reconnectDelay=100&"), lowest);
+    assertTrue(lowest.contains("&failover.maxReconnectDelay=5000&"), lowest);
+    assertTrue(highest.contains("&failover.reconnectDelay=300&"), highest);
+    assertTrue(highest.contains("&failover.maxReconnectDelay=15000&"), highest);
+  }
+
+  @Test
+  void getConnectionUri_rejects_plain_amqp_failover_uri() {
+    assertThrows(
+        ServiceException.class,
+        () ->
+            AemMessagingConnectionProvider.getConnectionUri(
+                List.of("amqps://broker.example.com"),
+                Map.of("failoverUris", "amqp://dr.example.com"),
+                0.5));
+  }
+
+  @Test
+  void getConnectionUri_adds_options_of_transport_profile() {
+    String uri =
+        AemMessagingConnectionProvider.getConnectionUri(
+            List.of("amqps://broker.example.com"), Map.of("transportProfile", "low-latency"), 0.5);
+
+    assertTrue(uri.contains("&failover.nested.transport.tcpNoDelay=true&"), uri);
+    assertTrue(uri.contains("&failover.nested.transport.useEpoll=true&"), uri);
+  }
+
+  // --- getTransportOptions ---
+
+  @Test
+  void getTransportOptions_appends_explicit_options_to_profile() {
+    List<String> options =
+        AemMessagingConnectionProvider.getTransportOptions(
+            Map.of(
+                "transportProfile",
+                "throughput",
+                "transportOptions",
+                "transport.sendBufferSize=262144 & amqp.maxFrameSize=65536"));
+
+    assertEquals(AemTransportProfile.THROUGHPUT.getOptions().get(0), options.get(0));
+    assertEquals(
+        List.of("transport.sendBufferSize=262144", "amqp.maxFrameSize=65536"),
+        options.subList(options.size() - 2, options.size()));
+  }
+
+  @Test
+  void getTransportOptions_is_empty_by_default() {
+    assertTrue(AemMessagingConnectionProvider.getTransportOptions(Map.of()).isEmpty());
+  }
+
+  @Test
+  void getTransportOptions_rejects_unknown_profile_and_options() {
+    assertThrows(
+        ServiceException.class,
+        () -> AemMessagingConnectionProvider.getTransportOptions(Map.of("transportProfile", "x")));
+    assertThrows(
+        ServiceException.class,
+        () ->
+            AemMessagingConnectionProvider.getTransportOptions(
+                Map.of("transportOptions", "jms.username=admin")));
+  }
+
+  // --- usesSharedSslContext ---
+
+  @Test
+  void usesSharedSslContext_by_default() {
+    assertTrue(AemMessagingConnectionProvider.usesSharedSslContext(Map.of()));
+    assertTrue(
+        AemMessagingConnectionProvider.usesSharedSslContext(
+            Map.of("transportOptions", "transport.verifyHost=true")));
+  }
+
+  @Test
+  void usesSharedSslContext_not_with_own_stores_or_when_disabled() {
+    assertFalse(
+        AemMessagingConnectionProvider.usesSharedSslContext(
+            Map.of("transportOptions", "transport.trustStoreLocation=/etc/trust.jks")));
+    assertFalse(
+        AemMessagingConnectionProvider.usesSharedSslContext(
+            Map.of("tls-session-resumption", "false")));
+  }
+
+  // --- applyTimeouts ---
+
+  @Test
+  void applyTimeouts_sets_configured_timeouts() {
+    JmsConnectionFactory factory = mock(JmsConnectionFactory.class);
+
+    AemMessagingConnectionProvider.applyTimeouts(
+        factory, Map.of("connectTimeout", "5000", "send-timeout", "10000"));
+
+    verify(factory).setConnectTimeout(5000);
+    verify(factory).setSendTimeout(10000);
+    verify(factory, never()).setRequestTimeout(anyLong());
+  }
+
+  @Test
+  void applyTimeouts_bounds_sends_by_default() {
+    JmsConnectionFactory factory = mock(JmsConnectionFactory.class);
+
+    AemMessagingConnectionProvider.applyTimeouts(factory, Map.of());
+
+    verify(factory).setSendTimeout(AemMessagePublisher.DEFAULT_SEND_TIMEOUT.toMillis());
+    verify(factory, never()).setConnectTimeout(anyLong());
+  }
+
   // --- validateAmqpUri ---
 
   @Test
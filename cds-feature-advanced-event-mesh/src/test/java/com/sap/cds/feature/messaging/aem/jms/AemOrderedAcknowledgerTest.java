@@ -0,0 +1,49 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+class AemOrderedAcknowledgerTest {
+
+  private final AemOrderedAcknowledger acknowledger = new AemOrderedAcknowledger();
+
+  @Test
+  void complete_acknowledges_messages_in_received_order() throws JMSException {
+    Message first = mock(Message.class);
+    Message second = mock(Message.class);
+
+    acknowledger.complete(1, second, true);
+    verify(second, never()).acknowledge();
+    assertEquals(1, acknowledger.getPending());
+
+    acknowledger.complete(0, first, true);
+    InOrder inOrder = inOrder(first, second);
+    inOrder.verify(first).acknowledge();
+    inOrder.verify(second).acknowledge();
+    assertEquals(0, acknowledger.getPending());
+  }
+
+  @Test
+  void complete_redelivers_unacknowledged_message_and_acknowledges_later_one()
+      throws JMSException {
+    Message failed = mock(Message.class);
+    Message processed = mock(Message.class);
+
+    acknowledger.complete(0, failed, false);
+    InOrder inOrder = inOrder(failed);
+    inOrder.verify(failed).setIntProperty("JMS_AMQP_ACK_TYPE", 4);
+    inOrder.verify(failed).acknowledge();
+
+    acknowledger.complete(1, processed, true);
+    verify(processed).acknowledge();
+    verify(processed, never()).setIntProperty("JMS_AMQP_ACK_TYPE", 4);
+  }
+}
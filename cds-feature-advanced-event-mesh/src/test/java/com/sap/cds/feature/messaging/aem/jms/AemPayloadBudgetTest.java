@@ -0,0 +1,59 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.TextMessage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AemPayloadBudgetTest {
+
+  @Test
+  void acquire_waits_for_room_in_budget() throws Exception {
+    AemPayloadBudget budget = new AemPayloadBudget(100);
+    budget.acquire(60);
+
+    CompletableFuture<Void> acquired = CompletableFuture.runAsync(() -> budget.acquire(60));
+    Thread.sleep(50);
+    assertFalse(acquired.isDone());
+
+    budget.release(60);
+    acquired.get(5, TimeUnit.SECONDS);
+    assertEquals(60, budget.getInFlight());
+  }
+
+  @Test
+  void acquire_admits_payload_larger_than_budget_when_empty() {
+    AemPayloadBudget budget = new AemPayloadBudget(100);
+
+    budget.acquire(500);
+
+    assertEquals(500, budget.getInFlight());
+  }
+
+  @Test
+  void getPayloadSize_counts_bytes_messages() throws Exception {
+    BytesMessage bytesMessage = mock(BytesMessage.class);
+    when(bytesMessage.getBodyLength()).thenReturn(1024L);
+
+    assertEquals(1024, AemPayloadBudget.getPayloadSize(bytesMessage));
+    assertEquals(0, AemPayloadBudget.getPayloadSize(mock(TextMessage.class)));
+  }
+
+  @Test
+  void copy_of_options_has_budget_of_its_own() {
+    AemConsumerOptions options = new AemConsumerOptions().setPayloadBudget(100);
+    AemConsumerOptions copy = options.copy();
+
+    assertSame(options.getBudget(), options.getBudget());
+    assertNotSame(options.getBudget(), copy.getBudget());
+    assertEquals(100, copy.getBudget().getMaxBytes());
+  }
+}
@@ -0,0 +1,41 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.qpid.jms.JmsQueue;
+import org.apache.qpid.jms.JmsSession;
+import org.apache.qpid.jms.JmsTopic;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
+import org.junit.jupiter.api.Test;
+
+class AemPrefetchPolicyTest {
+
+  private final Map<String, AemConsumerOptions> consumerOptions = new ConcurrentHashMap<>();
+  private final JmsDefaultPrefetchPolicy defaults = new JmsDefaultPrefetchPolicy();
+  private final JmsSession session = mock(JmsSession.class);
+
+  @Test
+  void getConfiguredPrefetch_uses_prefetch_of_queue() {
+    AemPrefetchPolicy policy = new AemPrefetchPolicy(defaults, consumerOptions).copy();
+    consumerOptions.put("my/queue", new AemConsumerOptions().setPrefetch(5));
+
+    assertEquals(
+        5, policy.getConfiguredPrefetch(session, new JmsQueue("queue://my/queue"), false, false));
+  }
+
+  @Test
+  void getConfiguredPrefetch_uses_default_for_other_destinations() {
+    AemPrefetchPolicy policy = new AemPrefetchPolicy(defaults, consumerOptions);
+    consumerOptions.put("my/queue", new AemConsumerOptions().setConcurrency(2));
+
+    assertEquals(
+        defaults.getQueuePrefetch(),
+        policy.getConfiguredPrefetch(session, new JmsQueue("my/queue"), false, false));
+    assertEquals(
+        defaults.getTopicPrefetch(),
+        policy.getConfiguredPrefetch(session, new JmsTopic("my/topic"), false, false));
+  }
+}
@@ -0,0 +1,169 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import jakarta.jms.Topic;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemProducerCacheTest {
+
+  @Mock private Connection connection;
+
+  private final List<Session> sessions = new ArrayList<>();
+  private final AtomicLong clock = new AtomicLong();
+
+  @BeforeEach
+  void setUp() throws JMSException {
+    MockitoAnnotations.openMocks(this);
+    when(connection.createSession(false, Session.AUTO_ACKNOWLEDGE))
+        .thenAnswer(
+            invocation -> {
+              Session session = mock(Session.class);
+              when(session.createTopic(anyString())).thenReturn(mock(Topic.class));
+              when(session.createProducer(any()))
+                  .thenReturn(mock(MessageProducer.class));
+              sessions.add(session);
+              return session;
+            });
+  }
+
+  @Test
+  void execute_reuses_producer_of_same_topic() throws JMSException {
+    AemProducerCache cache = new AemProducerCache(connection, 10, Duration.ZERO, clock::get);
+    List<MessageProducer> used = new ArrayList<>();
+
+    cache.execute("topic://a", (session, producer) -> used.add(producer));
+    cache.execute("topic://a", (session, producer) -> used.add(producer));
+
+    assertSame(used.get(0), used.get(1));
+    assertEquals(1, sessions.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void execute_uses_cached_producer_while_another_topic_opens_a_session() throws Exception {
+    AemProducerCache cache = new AemProducerCache(connection, 10, Duration.ZERO, clock::get);
+    cache.execute("topic://a", (session, producer) -> {});
+    CountDownLatch opening = new CountDownLatch(1);
+    CountDownLatch opened = new CountDownLatch(1);
+    Session slowSession = mock(Session.class);
+    when(slowSession.createProducer(any())).thenReturn(mock(MessageProducer.class));
+    when(connection.createSession(false, Session.AUTO_ACKNOWLEDGE))
+        .thenAnswer(
+            invocation -> {
+              opening.countDown();
+              opened.await();
+              return slowSession;
+            });
+    CompletableFuture<Void> slow =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                cache.execute("topic://b", (session, producer) -> {});
+              } catch (JMSException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    assertTrue(opening.await(5, TimeUnit.SECONDS));
+
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(5), () -> cache.execute("topic://a", (session, producer) -> {}));
+    assertEquals(1, cache.getHits());
+
+    opened.countDown();
+    slow.get(5, TimeUnit.SECONDS);
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void execute_evicts_least_recently_used_producer() throws JMSException {
+    AemProducerCache cache = new AemProducerCache(connection, 2, Duration.ZERO, clock::get);
+
+    cache.execute("topic://a", (session, producer) -> {});
+    cache.execute("topic://b", (session, producer) -> {});
+    cache.execute("topic://a", (session, producer) -> {});
+    cache.execute("topic://c", (session, producer) -> {});
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    verify(sessions.get(0), never()).close();
+    verify(sessions.get(1)).close();
+  }
+
+  @Test
+  void execute_evicts_idle_producers() throws JMSException {
+    AemProducerCache cache =
+        new AemProducerCache(connection, 10, Duration.ofNanos(100), clock::get);
+
+    cache.execute("topic://a", (session, producer) -> {});
+    clock.set(50);
+    cache.execute("topic://b", (session, producer) -> {});
+    clock.set(120);
+    cache.execute("topic://b", (session, producer) -> {});
+
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getEvictions());
+    verify(sessions.get(0)).close();
+  }
+
+  @Test
+  void execute_drops_producer_after_failure() throws JMSException {
+    AemProducerCache cache = new AemProducerCache(connection, 10, Duration.ZERO, clock::get);
+
+    assertThrows(
+        JMSException.class,
+        () ->
+            cache.execute(
+                "topic://a",
+                (session, producer) -> {
+                  throw new JMSException("link detached");
+                }));
+    cache.execute("topic://a", (session, producer) -> {});
+
+    assertEquals(2, sessions.size());
+    verify(sessions.get(0)).close();
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void clear_closes_all_sessions() throws JMSException {
+    AemProducerCache cache = new AemProducerCache(connection, 10, Duration.ZERO, clock::get);
+    cache.execute("topic://a", (session, producer) -> {});
+    cache.execute("topic://b", (session, producer) -> {});
+
+    cache.clear();
+
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getEvictions());
+    for (Session session : sessions) {
+      verify(session, times(1)).close();
+    }
+  }
+}
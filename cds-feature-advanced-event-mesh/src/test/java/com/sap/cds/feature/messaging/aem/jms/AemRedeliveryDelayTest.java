@@ -0,0 +1,73 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AemRedeliveryDelayTest {
+
+  @Test
+  void getDelay_grows_exponentially_up_to_maximum() {
+    try (AemRedeliveryDelay delay =
+        new AemRedeliveryDelay(Duration.ofMillis(100), Duration.ofMillis(500), 2)) {
+      assertEquals(0, delay.getDelay(1));
+      assertEquals(100, delay.getDelay(2));
+      assertEquals(200, delay.getDelay(3));
+      assertEquals(400, delay.getDelay(4));
+      assertEquals(500, delay.getDelay(5));
+    }
+  }
+
+  @Test
+  void delaying_hands_first_delivery_to_listener() {
+    MessageListener delegate = mock(MessageListener.class);
+    Message message = mock(Message.class);
+
+    try (AemRedeliveryDelay delay =
+        new AemRedeliveryDelay(Duration.ofMinutes(1), Duration.ofMinutes(1), 2)) {
+      delay.delaying(delegate).onMessage(message);
+    }
+
+    verify(delegate).onMessage(message);
+  }
+
+  @Test
+  void defer_hands_redelivered_message_to_listener_without_blocking() throws JMSException {
+    MessageListener delegate = mock(MessageListener.class);
+    Message message = mock(Message.class);
+    when(message.propertyExists("JMSXDeliveryCount")).thenReturn(true);
+    when(message.getIntProperty("JMSXDeliveryCount")).thenReturn(2);
+
+    try (AemRedeliveryDelay delay =
+        new AemRedeliveryDelay(Duration.ofMillis(200), Duration.ofMinutes(1), 2)) {
+      assertTrue(delay.defer(message, delegate));
+      verify(delegate, never()).onMessage(message);
+
+      verify(delegate, timeout(2000)).onMessage(message);
+    }
+  }
+
+  @Test
+  void defer_returns_false_for_first_delivery() {
+    MessageListener delegate = mock(MessageListener.class);
+
+    try (AemRedeliveryDelay delay =
+        new AemRedeliveryDelay(Duration.ofMillis(200), Duration.ofMinutes(1), 2)) {
+      assertFalse(delay.defer(mock(Message.class), delegate));
+    }
+
+    verify(delegate, never()).onMessage(any());
+  }
+}
@@ -0,0 +1,82 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemSessionTest {
+
+  @Mock private Session delegate;
+  @Mock private Session individualSession;
+  @Mock private Connection connection;
+  @Mock private Queue queue;
+  @Mock private Queue otherQueue;
+  @Mock private MessageConsumer consumer;
+
+  private AemSession session;
+
+  @BeforeEach
+  void setUp() throws JMSException {
+    MockitoAnnotations.openMocks(this);
+    when(queue.getQueueName()).thenReturn("queue://my/queue");
+    when(otherQueue.getQueueName()).thenReturn("other/queue");
+    when(connection.createSession(false, AemSession.INDIVIDUAL_ACKNOWLEDGE))
+        .thenReturn(individualSession);
+    when(individualSession.createConsumer(queue, null, false)).thenReturn(consumer);
+    when(delegate.createConsumer(otherQueue)).thenReturn(consumer);
+
+    session =
+        new AemSession(
+            delegate,
+            connection,
+            Map.of("my/queue", new AemConsumerOptions().setConcurrency(4)));
+  }
+
+  @Test
+  void createConsumer_uses_individual_acknowledgement_for_dispatching_queue() throws JMSException {
+    MessageConsumer created = session.createConsumer(queue);
+
+    assertInstanceOf(AemMessageConsumer.class, created);
+    verify(individualSession).createConsumer(queue, null, false);
+  }
+
+  @Test
+  void createConsumer_delegates_for_queue_without_options() throws JMSException {
+    assertSame(consumer, session.createConsumer(otherQueue));
+  }
+
+  @Test
+  void createConsumer_passes_selector_of_options() throws JMSException {
+    AemSession selectingSession =
+        new AemSession(
+            delegate,
+            connection,
+            Map.of("other/queue", new AemConsumerOptions().setSelector("type = 'created'")));
+
+    selectingSession.createConsumer(otherQueue, "priority > 4");
+
+    verify(delegate).createConsumer(otherQueue, "(priority > 4) AND (type = 'created')", false);
+  }
+
+  @Test
+  void close_closes_consumer_sessions() throws JMSException {
+    session.createConsumer(queue);
+
+    session.close();
+
+    verify(individualSession).close();
+    verify(delegate).close();
+  }
+}
@@ -0,0 +1,93 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLParameters;
+import org.junit.jupiter.api.Test;
+
+class AemSslContextTest {
+
+  private static SSLEngineResult result(HandshakeStatus status) {
+    return new SSLEngineResult(Status.OK, status, 0, 0);
+  }
+
+  @Test
+  void create_returns_engines_measuring_the_handshake() {
+    AemSslContext context = AemSslContext.create();
+
+    SSLEngine engine = context.createSSLEngine("broker", 5671);
+
+    assertInstanceOf(AemSslEngine.class, engine);
+    assertEquals("broker", engine.getPeerHost());
+    assertEquals(5671, engine.getPeerPort());
+    assertEquals(0, context.getHandshakes());
+    assertEquals(0, context.getAverageHandshakeMillis());
+  }
+
+  @Test
+  void create_shares_the_client_session_cache() {
+    AemSslContext context = AemSslContext.create();
+
+    assertSame(context.getClientSessionContext(), context.getClientSessionContext());
+  }
+
+  @Test
+  void engine_records_the_initial_handshake_once() throws Exception {
+    AemSslContext.Handshakes handshakes = new AemSslContext.Handshakes();
+    SSLEngine delegate = mock(SSLEngine.class);
+    when(delegate.wrap(any(ByteBuffer[].class), anyInt(), anyInt(), any(ByteBuffer.class)))
+        .thenReturn(result(HandshakeStatus.NEED_UNWRAP))
+        .thenReturn(result(HandshakeStatus.FINISHED))
+        .thenReturn(result(HandshakeStatus.FINISHED));
+    when(delegate.unwrap(any(ByteBuffer.class), any(ByteBuffer[].class), anyInt(), anyInt()))
+        .thenReturn(result(HandshakeStatus.NEED_WRAP));
+    AemSslEngine engine = new AemSslEngine(delegate, handshakes);
+
+    engine.wrap(ByteBuffer.allocate(0), ByteBuffer.allocate(16));
+    engine.unwrap(ByteBuffer.allocate(0), ByteBuffer.allocate(16));
+    assertEquals(0, handshakes.getCount());
+
+    engine.wrap(ByteBuffer.allocate(0), ByteBuffer.allocate(16));
+    engine.wrap(ByteBuffer.allocate(0), ByteBuffer.allocate(16));
+    assertEquals(1, handshakes.getCount());
+  }
+
+  @Test
+  void engine_delegates_the_ssl_parameters() {
+    SSLEngine delegate = mock(SSLEngine.class);
+    SSLParameters parameters = new SSLParameters();
+    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+    AemSslEngine engine = new AemSslEngine(delegate, new AemSslContext.Handshakes());
+
+    engine.setSSLParameters(parameters);
+    engine.setUseClientMode(true);
+
+    verify(delegate).setSSLParameters(parameters);
+    verify(delegate).setUseClientMode(true);
+  }
+
+  @Test
+  void handshakes_aggregate_the_durations() {
+    AemSslContext.Handshakes handshakes = new AemSslContext.Handshakes();
+
+    handshakes.record(40);
+    handshakes.record(10);
+
+    assertEquals(2, handshakes.getCount());
+    assertEquals(10, handshakes.getLastMillis());
+    assertEquals(40, handshakes.getMaxMillis());
+    assertEquals(25, handshakes.getAverageMillis());
+  }
+}
@@ -0,0 +1,64 @@
+package com.sap.cds.feature.messaging.aem.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sap.cds.services.ServiceException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AemTokenCacheTest {
+
+  private static String jwt(long expSeconds) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8))
+        + "."
+        + encoder.encodeToString(
+            ("{\"exp\":" + expSeconds + "}").getBytes(StandardCharsets.UTF_8))
+        + ".signature";
+  }
+
+  @Test
+  void getExpiry_reads_exp_claim() {
+    assertEquals(1_700_000_000_000L, AemTokenCache.getExpiry(jwt(1_700_000_000L)).getAsLong());
+    assertTrue(AemTokenCache.getExpiry("opaque-token").isEmpty());
+  }
+
+  @Test
+  void getToken_serves_cached_token_until_expired() {
+    AtomicLong now = new AtomicLong(0);
+    AtomicInteger fetches = new AtomicInteger();
+    String token = jwt(3600);
+    try (AemTokenCache cache =
+        new AemTokenCache(
+            () -> {
+              fetches.incrementAndGet();
+              return Optional.of(token);
+            },
+            0.75,
+            now::get)) {
+      assertEquals(token, cache.getToken());
+      now.set(3_000_000);
+      assertEquals(token, cache.getToken());
+      assertEquals(1, fetches.get());
+
+      now.set(3_600_000);
+      cache.getToken();
+      assertEquals(2, fetches.get());
+      assertEquals(2, cache.getRefreshCount());
+    }
+  }
+
+  @Test
+  void getToken_counts_failures() {
+    try (AemTokenCache cache = new AemTokenCache(Optional::empty, 0.75)) {
+      assertThrows(ServiceException.class, cache::getToken);
+      assertEquals(1, cache.getFailureCount());
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sap.cds.feature.messaging.aem.client.AemValidationClient;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class AemBrokerValidatorTest {
+
+  private static final String ENDPOINT = "https://broker.example.com:943";
+
+  @Mock private AemValidationClient validationClient;
+
+  private long now;
+  private AemBrokerValidator validator;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    validator = new AemBrokerValidator(validationClient, Runnable::run, () -> now);
+  }
+
+  @Test
+  void validate_shares_validation_of_same_endpoint() throws Exception {
+    CompletableFuture<Void> first = validator.validate(ENDPOINT, null, null);
+    CompletableFuture<Void> second = validator.validate(ENDPOINT, null, null);
+
+    assertSame(first, second);
+    verify(validationClient, times(1)).validate(ENDPOINT, null);
+  }
+
+  @Test
+  void validate_validates_each_subaccount() throws Exception {
+    validator.validate(ENDPOINT, "acct-1", null);
+    validator.validate(ENDPOINT, "acct-2", null);
+
+    verify(validationClient).validate(ENDPOINT, "acct-1");
+    verify(validationClient).validate(ENDPOINT, "acct-2");
+  }
+
+  @Test
+  void validate_runs_in_background() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    validator = new AemBrokerValidator(validationClient, tasks::add, () -> now);
+
+    CompletableFuture<Void> validation = validator.validate(ENDPOINT, null, null);
+
+    assertFalse(validation.isDone());
+    verify(validationClient, never()).validate(any(), any());
+
+    tasks.forEach(Runnable::run);
+
+    assertTrue(validation.isDone());
+    verify(validationClient).validate(ENDPOINT, null);
+  }
+
+  @Test
+  void validate_revalidates_after_ttl() throws Exception {
+    Duration ttl = Duration.ofMinutes(5);
+    CompletableFuture<Void> first = validator.validate(ENDPOINT, null, ttl);
+
+    now += ttl.toMillis() - 1;
+    assertSame(first, validator.validate(ENDPOINT, null, ttl));
+
+    now += 1;
+    assertNotSame(first, validator.validate(ENDPOINT, null, ttl));
+    verify(validationClient, times(2)).validate(ENDPOINT, null);
+  }
+
+  @Test
+  void validate_keeps_last_validation_valid_while_revalidating() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    validator = new AemBrokerValidator(validationClient, tasks::add, () -> now);
+    Duration ttl = Duration.ofMinutes(5);
+    validator.validate(ENDPOINT, null, ttl);
+    tasks.remove(0).run();
+
+    now += ttl.toMillis();
+    CompletableFuture<Void> revalidation = validator.validate(ENDPOINT, null, ttl);
+
+    assertTrue(revalidation.isDone());
+    assertEquals(1, tasks.size());
+    doThrow(new IOException("network error")).when(validationClient).validate(any(), any());
+    tasks.remove(0).run();
+    // the failed revalidation is not valid anymore and is started again
+    assertFalse(validator.validate(ENDPOINT, null, ttl).isDone());
+  }
+
+  @Test
+  void validate_retries_failed_validation() throws Exception {
+    doThrow(new IOException("network error")).when(validationClient).validate(any(), any());
+
+    CompletableFuture<Void> first = validator.validate(ENDPOINT, null, null);
+    CompletableFuture<Void> second = validator.validate(ENDPOINT, null, null);
+
+    assertTrue(first.isCompletedExceptionally());
+    assertNotSame(first, second);
+    verify(validationClient, times(2)).validate(ENDPOINT, null);
+  }
+}
@@ -0,0 +1,123 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.TopicMessageEventContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AemEmitBufferTest {
+
+  private static TopicMessageEventContext context(String data) {
+    TopicMessageEventContext context = mock(TopicMessageEventContext.class);
+    when(context.getData()).thenReturn(data);
+    return context;
+  }
+
+  @Test
+  void flush_emits_buffered_messages_in_order() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(10, 1024, AemEmitBuffer.OverflowPolicy.FAIL, Duration.ZERO);
+    TopicMessageEventContext first = context("first");
+    TopicMessageEventContext second = context("second");
+
+    assertTrue(buffer.offer("topic1", first));
+    assertTrue(buffer.offer("topic2", second));
+    assertEquals(2, buffer.size());
+
+    List<String> topics = new ArrayList<>();
+    List<TopicMessageEventContext> contexts = new ArrayList<>();
+    buffer.flush(
+        (t, c) -> {
+          topics.addAll(t);
+          contexts.addAll(c);
+        });
+
+    assertEquals(List.of("topic1", "topic2"), topics);
+    assertEquals(List.of(first, second), contexts);
+    assertEquals(0, buffer.size());
+    assertTrue(buffer.isFlushed());
+  }
+
+  @Test
+  void offer_returns_false_after_flush() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(10, 1024, AemEmitBuffer.OverflowPolicy.FAIL, Duration.ZERO);
+    buffer.flush((t, c) -> {});
+
+    assertFalse(buffer.offer("topic", context("data")));
+  }
+
+  @Test
+  void offer_fails_when_message_count_is_exceeded() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(1, 1024, AemEmitBuffer.OverflowPolicy.FAIL, Duration.ZERO);
+    buffer.offer("topic", context("data"));
+
+    assertThrows(ServiceException.class, () -> buffer.offer("topic", context("data")));
+  }
+
+  @Test
+  void offer_fails_when_bytes_are_exceeded() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(10, 6, AemEmitBuffer.OverflowPolicy.FAIL, Duration.ZERO);
+    buffer.offer("topic", context("data"));
+
+    assertThrows(ServiceException.class, () -> buffer.offer("topic", context("data")));
+    assertThrows(ServiceException.class, () -> buffer.offer("topic", context("too large")));
+  }
+
+  @Test
+  void offer_fails_when_buffer_is_disabled() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(0, 1024, AemEmitBuffer.OverflowPolicy.BLOCK, Duration.ofSeconds(10));
+
+    assertThrows(ServiceException.class, () -> buffer.offer("topic", context("data")));
+  }
+
+  @Test
+  void offer_blocks_until_buffer_is_flushed() throws Exception {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(1, 1024, AemEmitBuffer.OverflowPolicy.BLOCK, Duration.ofSeconds(10));
+    buffer.offer("topic", context("data"));
+
+    TopicMessageEventContext context = context("data");
+    CompletableFuture<Boolean> offered =
+        CompletableFuture.supplyAsync(() -> buffer.offer("topic", context));
+    Thread.sleep(50);
+    assertFalse(offered.isDone());
+
+    buffer.flush((t, c) -> {});
+
+    assertFalse(offered.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void offer_fails_when_block_timeout_elapses() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(1, 1024, AemEmitBuffer.OverflowPolicy.BLOCK, Duration.ofMillis(10));
+    buffer.offer("topic", context("data"));
+
+    assertThrows(ServiceException.class, () -> buffer.offer("topic", context("data")));
+  }
+
+  @Test
+  void close_discards_buffered_messages() {
+    AemEmitBuffer buffer =
+        new AemEmitBuffer(10, 1024, AemEmitBuffer.OverflowPolicy.FAIL, Duration.ZERO);
+    buffer.offer("topic", context("data"));
+
+    assertEquals(1, buffer.close());
+    assertThrows(ServiceException.class, () -> buffer.offer("topic", context("data")));
+  }
+}
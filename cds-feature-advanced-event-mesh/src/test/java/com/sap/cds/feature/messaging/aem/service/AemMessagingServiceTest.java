@@ -7,24 +7,35 @@ import com.sap.cds.services.environment.ApplicationInfo;
 import com.sap.cds.services.environment.CdsEnvironment;
 import com.sap.cds.feature.messaging.aem.client.AemManagementClient;
 import com.sap.cds.feature.messaging.aem.client.AemValidationClient;
+import com.sap.cds.feature.messaging.aem.jms.AemBrokerConnection;
+import com.sap.cds.feature.messaging.aem.jms.AemMessagePublisher;
 import com.sap.cds.feature.messaging.aem.jms.AemMessagingConnectionProvider;
+import com.sap.cds.feature.messaging.aem.jms.AemProducerCache;
+import com.sap.cds.services.EventContext;
 import com.sap.cds.services.ServiceException;
 import com.sap.cds.services.environment.CdsProperties.Messaging.MessagingServiceConfig;
 import com.sap.cds.services.messaging.TopicMessageEventContext;
 import com.sap.cds.services.messaging.jms.BrokerConnection;
+import com.sap.cds.services.messaging.service.MessagingBrokerQueueListener;
 import com.sap.cds.services.runtime.CdsRuntime;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.apache.qpid.jms.message.JmsBytesMessage;
+import org.apache.qpid.jms.message.JmsMapMessage;
 import org.apache.qpid.jms.message.JmsTextMessage;
 import org.apache.qpid.jms.provider.amqp.message.AmqpJmsBytesMessageFacade;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsMapMessageFacade;
 import org.apache.qpid.jms.provider.amqp.message.AmqpJmsTextMessageFacade;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -115,6 +126,29 @@ class AemMessagingServiceTest {
         inOrder.verify(managementClient).createQueue("main", Map.of(AemManagementClient.ATTR_DEAD_MSG_QUEUE, "dead"));
     }
 
+    @Test
+    void createQueue_adds_redelivery_attributes_to_queue() throws IOException {
+        MessagingServiceConfig config = new MessagingServiceConfig("redelivery-service");
+        config.getConnection().getProperties().put("redeliveryDelay", "1000");
+        config.getConnection().getProperties().put("maxRedeliveryCount", "5");
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, brokerConnection, runtime);
+        when(managementClient.getQueue("dead")).thenReturn(null);
+
+        svc.createQueue("main", Map.of(AemManagementClient.ATTR_DEAD_MSG_QUEUE, "dead"));
+
+        verify(managementClient).createQueue("dead", Collections.emptyMap());
+        verify(managementClient).createQueue("main", Map.of(
+                AemManagementClient.ATTR_DEAD_MSG_QUEUE, "dead",
+                AemManagementClient.ATTR_REDELIVERY_ENABLED, true,
+                AemManagementClient.ATTR_MAX_REDELIVERY_COUNT, 5,
+                AemManagementClient.ATTR_REDELIVERY_DELAY_ENABLED, true,
+                AemManagementClient.ATTR_REDELIVERY_DELAY_INITIAL_INTERVAL, 1000L,
+                AemManagementClient.ATTR_REDELIVERY_DELAY_MAX_INTERVAL, 60000L,
+                AemManagementClient.ATTR_REDELIVERY_DELAY_MULTIPLIER, 200L));
+    }
+
     @Test
     void createQueue_skips_dmq_creation_when_dmq_already_exists() throws IOException {
         var existingNode = new com.fasterxml.jackson.databind.ObjectMapper().createObjectNode();
@@ -191,6 +225,244 @@ class AemMessagingServiceTest {
         verify(validationClient).validate(MANAGEMENT_URI, "acct-123");
     }
 
+    @Test
+    void init_validates_broker_before_first_emit() throws Exception {
+        service.init();
+        verify(validationClient).validate(MANAGEMENT_URI, null);
+
+        service.emitTopicMessage("my/topic", messageEventContext);
+        verify(validationClient, times(1)).validate(any(), any());
+    }
+
+    @Test
+    void emitTopicMessage_revalidates_after_failed_validation() throws Exception {
+        doThrow(new IOException("network error")).doNothing().when(validationClient).validate(any(), any());
+
+        assertThrows(ServiceException.class,
+                () -> service.emitTopicMessage("my/topic", messageEventContext));
+        service.emitTopicMessage("my/topic", messageEventContext);
+
+        verify(validationClient, times(2)).validate(MANAGEMENT_URI, null);
+        verify(brokerConnection).emitTopicMessage("topic://my/topic", messageEventContext);
+    }
+
+    @Test
+    void maxInFlight_defaults_to_synchronous_publishing() {
+        assertEquals(0, service.getMaxInFlight());
+    }
+
+    @Test
+    void maxInFlight_is_read_from_connection_properties() {
+        MessagingServiceConfig config = new MessagingServiceConfig("async-service");
+        config.getConnection().getProperties().put("max-in-flight", "500");
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, brokerConnection, runtime);
+
+        assertEquals(500, svc.getMaxInFlight());
+    }
+
+    @Test
+    void emitTopicMessage_publishes_same_topic_over_same_publisher() {
+        AemMessagePublisher first = mock(AemMessagePublisher.class);
+        AemMessagePublisher second = mock(AemMessagePublisher.class);
+        service.setPublishers(List.of(first, second));
+
+        service.emitTopicMessage("my/topic", messageEventContext);
+        service.emitTopicMessage("my/topic", messageEventContext);
+
+        AemMessagePublisher expected = Math.floorMod("my/topic".hashCode(), 2) == 0 ? first : second;
+        verify(expected, times(2)).publish("topic://my/topic", messageEventContext);
+        verifyNoInteractions(brokerConnection);
+    }
+
+    @Test
+    void getSettlement_returns_settlement_of_published_message() {
+        AemMessagePublisher publisher = mock(AemMessagePublisher.class);
+        CompletableFuture<Void> settlement = new CompletableFuture<>();
+        TopicMessageEventContext context =
+                EventContext.create(TopicMessageEventContext.class, null);
+        when(publisher.publish("topic://my/topic", context)).thenReturn(settlement);
+        service.setPublishers(List.of(publisher));
+
+        assertTrue(service.getSettlement(context).isEmpty());
+        service.emitTopicMessage("my/topic", context);
+
+        assertSame(settlement, service.getSettlement(context).orElseThrow());
+    }
+
+    @Test
+    void emitTopicMessages_publishes_batch_per_publisher() throws Exception {
+        AemMessagePublisher publisher = mock(AemMessagePublisher.class);
+        AemMessagingService batching = resolvingTopics(service);
+        batching.setPublishers(List.of(publisher));
+        when(messageEventContext.getEvent()).thenReturn("my/topic");
+
+        batching.emitTopicMessages(List.of(messageEventContext, messageEventContext));
+
+        verify(batching, times(2)).emit(messageEventContext);
+        verify(publisher).publishBatch(
+                eq(List.of("topic://ns/my/topic", "topic://ns/my/topic")),
+                eq(List.of(messageEventContext, messageEventContext)),
+                eq(false),
+                any());
+        verify(publisher, never()).publish(any(), any());
+        verify(validationClient, times(1)).validate(MANAGEMENT_URI, null);
+    }
+
+    @Test
+    void emitTopicMessages_emits_one_by_one_without_aem_connection() {
+        AemMessagingService batching = resolvingTopics(service);
+        when(messageEventContext.getEvent()).thenReturn("my/topic");
+
+        batching.emitTopicMessages(List.of(messageEventContext, messageEventContext));
+
+        verify(brokerConnection, times(2))
+                .emitTopicMessage("topic://ns/my/topic", messageEventContext);
+    }
+
+    // emulates the handlers of the service, which resolve the topic of an emitted message
+    private static AemMessagingService resolvingTopics(AemMessagingService service) {
+        AemMessagingService spy = spy(service);
+        doAnswer(invocation -> {
+            TopicMessageEventContext context = invocation.getArgument(0);
+            spy.emitTopicMessage("ns/" + context.getEvent(), context);
+            return null;
+        }).when(spy).emit(any(TopicMessageEventContext.class));
+        return spy;
+    }
+
+    @Test
+    void getProducerCaches_returns_caches_of_publishers() {
+        AemProducerCache cache = mock(AemProducerCache.class);
+        AemMessagePublisher cached = mock(AemMessagePublisher.class);
+        when(cached.getProducerCache()).thenReturn(cache);
+        service.setPublishers(List.of(cached, mock(AemMessagePublisher.class)));
+
+        assertEquals(List.of(cache), service.getProducerCaches());
+    }
+
+    @Test
+    void stop_flushes_and_closes_publishers() throws JMSException {
+        AemMessagePublisher publisher = mock(AemMessagePublisher.class);
+        service.setPublishers(List.of(publisher));
+
+        service.stop();
+
+        verify(publisher).flush(any());
+        verify(publisher).close();
+        verify(brokerConnection).close();
+    }
+
+    @Test
+    void emitTopicMessage_buffers_messages_until_connection_is_established() {
+        MessagingServiceConfig config = new MessagingServiceConfig("buffer-service");
+        config.getConnection().getProperties().put("emitBufferSize", "1000");
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, null, runtime);
+
+        assertDoesNotThrow(() -> svc.emitTopicMessage("my/topic", messageEventContext));
+        verifyNoInteractions(validationClient);
+    }
+
+    @Test
+    void emitTopicMessage_fails_without_connection_by_default() {
+        MessagingServiceConfig config = new MessagingServiceConfig("default-service");
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, null, runtime);
+
+        assertThrows(ServiceException.class,
+                () -> svc.emitTopicMessage("my/topic", messageEventContext));
+    }
+
+    @Test
+    void emitTopicMessage_fails_without_connection_when_buffer_is_disabled() {
+        MessagingServiceConfig config = new MessagingServiceConfig("no-buffer-service");
+        config.getConnection().getProperties().put("emit-buffer-size", "0");
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, null, runtime);
+
+        assertThrows(ServiceException.class,
+                () -> svc.emitTopicMessage("my/topic", messageEventContext));
+    }
+
+    @Test
+    void emitTopicMessage_writes_unsent_messages_to_journal_and_replays_them(@TempDir Path directory) {
+        MessagingServiceConfig config = new MessagingServiceConfig("journal-service");
+        config.getConnection().getProperties().put("journalDirectory", directory.toString());
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, brokerConnection, runtime);
+        svc.init();
+
+        doThrow(new ServiceException("unreachable")).doNothing()
+                .when(brokerConnection).emitTopicMessage(eq("topic://my/topic"), any());
+
+        svc.emitTopicMessage("my/topic", messageEventContext);
+        svc.emitTopicMessage("my/topic", messageEventContext);
+        verify(brokerConnection, times(1)).emitTopicMessage(eq("topic://my/topic"), any());
+
+        svc.replayJournal();
+        verify(brokerConnection, times(3)).emitTopicMessage(eq("topic://my/topic"), any());
+
+        svc.emitTopicMessage("my/topic", messageEventContext);
+        verify(brokerConnection, times(4)).emitTopicMessage(eq("topic://my/topic"), any());
+        svc.stop();
+    }
+
+    @Test
+    void registerQueueListener_opens_configured_number_of_consumers() throws IOException {
+        MessagingServiceConfig config = new MessagingServiceConfig("consumers-service");
+        config.getConnection().getProperties().put("consumers", "3");
+        config.getOutbox().setEnabled(false);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, brokerConnection, runtime);
+        MessagingBrokerQueueListener listener = mock(MessagingBrokerQueueListener.class);
+
+        svc.registerQueueListener("my/queue", listener);
+
+        verify(brokerConnection, times(3)).registerQueueListener(eq("my/queue"), eq(listener), any());
+    }
+
+    @Test
+    void registerQueueListener_registers_consumer_options() throws IOException {
+        MessagingServiceConfig config = new MessagingServiceConfig("dispatch-service");
+        config.getConnection().getProperties().put("concurrency", "4");
+        config.getConnection().getProperties().put("orderingKey", "subject");
+        config.getOutbox().setEnabled(false);
+        AemBrokerConnection aemConnection = mock(AemBrokerConnection.class);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, aemConnection, runtime);
+        MessagingBrokerQueueListener listener = mock(MessagingBrokerQueueListener.class);
+
+        svc.registerQueueListener("my/queue", listener);
+
+        verify(aemConnection).setConsumerOptions(eq("my/queue"),
+                argThat(options -> options.getConcurrency() == 4 && "subject".equals(options.getOrderingKey())));
+        verify(aemConnection).registerQueueListener(eq("my/queue"), eq(listener), any());
+    }
+
+    @Test
+    void registerQueueListener_registers_selector_of_queue() throws IOException {
+        MessagingServiceConfig config = new MessagingServiceConfig("selector-service");
+        config.getConnection().getProperties().put("selector.my/queue", "cloudEvents_type = 'created'");
+        config.getOutbox().setEnabled(false);
+        AemBrokerConnection aemConnection = mock(AemBrokerConnection.class);
+        AemMessagingService svc = new AemMessagingService(
+                config, connectionProvider, managementClient, validationClient, aemConnection, runtime);
+        MessagingBrokerQueueListener listener = mock(MessagingBrokerQueueListener.class);
+
+        svc.registerQueueListener("my/queue", listener);
+        svc.registerQueueListener("other/queue", listener);
+
+        verify(aemConnection).setConsumerOptions(eq("my/queue"),
+                argThat(options -> "cloudEvents_type = 'created'".equals(options.getSelector())));
+        verify(aemConnection, never()).setConsumerOptions(eq("other/queue"), any());
+    }
+
     // --- stop ---
 
     @Test
@@ -235,6 +507,26 @@ class AemMessagingServiceTest {
         assertEquals("bytes/topic/address", service.getMessageTopic(msg));
     }
 
+    @Test
+    void getMessageTopic_reads_to_address_of_amqp_map_message() {
+        AmqpJmsMapMessageFacade facade = mock(AmqpJmsMapMessageFacade.class);
+        when(facade.getToAddress()).thenReturn("map/topic/address");
+        JmsMapMessage msg = new JmsMapMessage(facade);
+
+        assertEquals("map/topic/address", service.getMessageTopic(msg));
+        verify(facade, never()).getDestination();
+    }
+
+    @Test
+    void getMessageTopic_falls_back_to_jms_destination() throws JMSException {
+        jakarta.jms.Topic topic = mock(jakarta.jms.Topic.class);
+        when(topic.getTopicName()).thenReturn("other/topic");
+        Message msg = mock(Message.class);
+        when(msg.getJMSDestination()).thenReturn(topic);
+
+        assertEquals("other/topic", service.getMessageTopic(msg));
+    }
+
     @Test
     void getMessageTopic_returns_null_for_unknown_message_type() {
         Message unknownMsg = mock(Message.class);
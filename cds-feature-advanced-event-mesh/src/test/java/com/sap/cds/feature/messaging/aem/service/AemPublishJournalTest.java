@@ -0,0 +1,179 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sap.cds.services.EventContext;
+import com.sap.cds.services.ServiceException;
+import com.sap.cds.services.messaging.TopicMessageEventContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AemPublishJournalTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void replay_sends_messages_in_order_and_deletes_segments() throws IOException {
+    List<String> sent = new ArrayList<>();
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      assertTrue(journal.isEmpty());
+
+      journal.append("topic1", context("first"));
+      journal.append("topic2", context("second"));
+      assertFalse(journal.isEmpty());
+
+      assertEquals(
+          2, journal.replay((topic, context) -> sent.add(topic + ":" + context.getData())));
+      assertTrue(journal.isEmpty());
+    }
+
+    assertEquals(List.of("topic1:first", "topic2:second"), sent);
+    assertEquals(0, countFiles());
+  }
+
+  @Test
+  void replay_stops_at_failed_message_and_resumes() throws IOException {
+    List<String> sent = new ArrayList<>();
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      journal.append("topic", context("first"));
+      journal.append("topic", context("second"));
+
+      assertThrows(
+          ServiceException.class,
+          () ->
+              journal.replay(
+                  (topic, context) -> {
+                    if (context.getData().equals("second")) {
+                      throw new ServiceException("unreachable");
+                    }
+                    sent.add(context.getData());
+                  }));
+      assertFalse(journal.isEmpty());
+
+      journal.replay((topic, context) -> sent.add(context.getData()));
+    }
+
+    assertEquals(List.of("first", "second"), sent);
+  }
+
+  @Test
+  void append_rolls_over_to_new_segment() throws IOException {
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 64, 4)) {
+      journal.append("topic", context("0123456789012345678901234567890123"));
+      journal.append("topic", context("0123456789012345678901234567890123"));
+
+      assertEquals(2, journal.getSegmentCount());
+      assertEquals(2, countFiles());
+    }
+  }
+
+  @Test
+  void append_fails_when_journal_is_full() throws IOException {
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 64, 1)) {
+      journal.append("topic", context("0123456789012345678901234567890123"));
+
+      assertThrows(
+          ServiceException.class,
+          () -> journal.append("topic", context("0123456789012345678901234567890123")));
+      assertThrows(ServiceException.class, () -> journal.append("topic", context("x".repeat(64))));
+    }
+  }
+
+  @Test
+  void appendIfNotEmpty_appends_only_to_pending_journal() throws IOException {
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      assertFalse(journal.appendIfNotEmpty("topic", context("data")));
+
+      journal.append("topic", context("first"));
+
+      assertTrue(journal.appendIfNotEmpty("topic", context("second")));
+    }
+  }
+
+  @Test
+  void journal_is_recovered_after_reopening() throws IOException {
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      journal.append("topic", context("first"));
+      journal.append("topic", context("second"));
+      journal.replay(
+          (topic, context) -> {
+            if (context.getData().equals("second")) {
+              throw new ServiceException("unreachable");
+            }
+          });
+    } catch (ServiceException e) {
+      // expected
+    }
+
+    List<String> sent = new ArrayList<>();
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      assertFalse(journal.isEmpty());
+
+      journal.replay((topic, context) -> sent.add(context.getData()));
+      journal.append("topic", context("third"));
+      journal.replay((topic, context) -> sent.add(context.getData()));
+    }
+
+    assertEquals(List.of("second", "third"), sent);
+  }
+
+  @Test
+  void replay_restores_the_headers_of_the_messages() throws IOException {
+    List<TopicMessageEventContext> sent = new ArrayList<>();
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      TopicMessageEventContext context = context("data");
+      context.setHeadersMap(Map.of("tenant", "t1", "priority", 5));
+      journal.append("topic", context);
+      journal.append("topic", context("plain"));
+
+      journal.replay((topic, replayed) -> sent.add(replayed));
+    }
+
+    assertEquals("data", sent.get(0).getData());
+    assertEquals(Map.of("tenant", "t1", "priority", 5), sent.get(0).getHeadersMap());
+    assertEquals("plain", sent.get(1).getData());
+  }
+
+  @Test
+  void append_does_not_wait_for_a_replay() throws Exception {
+    try (AemPublishJournal journal = new AemPublishJournal(directory, 1024, 4)) {
+      journal.append("topic", context("first"));
+      List<String> sent = new ArrayList<>();
+
+      journal.replay(
+          (topic, context) -> {
+            sent.add(context.getData());
+            if (sent.size() == 1) {
+              // appended by another thread while the first message is sent
+              CompletableFuture.runAsync(() -> journal.append("topic", context("second"))).join();
+            }
+          });
+
+      assertEquals(List.of("first", "second"), sent);
+      assertTrue(journal.isEmpty());
+    }
+  }
+
+  private static TopicMessageEventContext context(String data) {
+    TopicMessageEventContext context = EventContext.create(TopicMessageEventContext.class, null);
+    context.setData(data);
+    return context;
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.sap.cds.feature.messaging.aem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sap.cds.feature.messaging.aem.client.AemMonitorClient;
+import com.sap.cds.feature.messaging.aem.client.AemQueueMetrics;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AemQueueMonitorTest {
+
+  @Test
+  void poll_derives_redelivery_rate_and_lag() throws IOException {
+    AemMonitorClient client = mock(AemMonitorClient.class);
+    when(client.getQueueMetrics(any()))
+        .thenReturn(Map.of("q", new AemQueueMetrics("q", 10, 100, 1, 5, 0)))
+        .thenReturn(Map.of("q", new AemQueueMetrics("q", 25, 250, 1, 25, 0)));
+    AtomicLong now = new AtomicLong(1000);
+    AemQueueMonitor monitor = new AemQueueMonitor(client, Set.of("q"), now::get);
+
+    monitor.poll();
+    now.set(11000);
+    monitor.poll();
+
+    assertEquals(2.0, monitor.getMetrics().get("q").redeliveryRate());
+    assertEquals(25, monitor.getLag());
+  }
+
+  @Test
+  void poll_keeps_last_metrics_on_failure() throws IOException {
+    AemMonitorClient client = mock(AemMonitorClient.class);
+    when(client.getQueueMetrics(any()))
+        .thenReturn(Map.of("q", new AemQueueMetrics("q", 10, 100, 1, 5, 0)))
+        .thenThrow(new IOException("unavailable"));
+    AemQueueMonitor monitor = new AemQueueMonitor(client, Set.of("q"));
+
+    monitor.poll();
+    monitor.poll();
+
+    assertEquals(10, monitor.getLag());
+    assertTrue(monitor.getMetrics().containsKey("q"));
+  }
+}